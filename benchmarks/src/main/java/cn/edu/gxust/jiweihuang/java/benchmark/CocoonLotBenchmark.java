@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.benchmark;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBave;
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBaveDistribution;
+import cn.edu.gxust.jiweihuang.java.filature.cocoon.CocoonLot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The benchmarks of lot-level statistics over the baves of a lot,
+ * stored as {@code QVLBave} objects or by columns in {@code CocoonLot}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class CocoonLotBenchmark {
+
+    @Param({"1000000"})
+    private int lotSize;
+
+    private QVLBave[] baves;
+    private CocoonLot lot;
+
+    @Setup
+    public void setup() {
+        lot = CocoonLot.sample(QVLBaveDistribution.independent(SyntheticLot.NOMINAL, 0.1),
+                lotSize, new SplittableRandom(20181218L));
+        baves = new QVLBave[lotSize];
+        for (int i = 0; i < lotSize; i++) {
+            baves[i] = lot.getBave(i);
+        }
+    }
+
+    @Benchmark
+    public double objectsTotalLength() {
+        double sum = 0;
+        for (QVLBave bave : baves) {
+            sum += bave.getBaveLength();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double lotTotalLength() {
+        return lot.getTotalBaveLength();
+    }
+
+    @Benchmark
+    public double objectsMeanSize() {
+        double integral = 0;
+        double length = 0;
+        for (QVLBave bave : baves) {
+            integral += bave.integrate(bave.getBaveLength()) - bave.integrate(0);
+            length += bave.getBaveLength();
+        }
+        return integral / length;
+    }
+
+    @Benchmark
+    public double lotMeanSize() {
+        return lot.getMeanBaveSize();
+    }
+}
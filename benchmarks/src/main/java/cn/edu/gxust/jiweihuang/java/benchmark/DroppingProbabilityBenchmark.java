@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.benchmark;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.partition.IDroppingProbability;
+import cn.edu.gxust.jiweihuang.java.filature.bave.partition.ISizeDroppingProbability;
+import cn.edu.gxust.jiweihuang.java.filature.bave.partition.TabulatedDroppingProbability;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The benchmarks of a lookup of the dropping probability depending on
+ * bave size, the exact function against the tabulated ones.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DroppingProbabilityBenchmark {
+
+    private static final int SIZE_NUM = 1024;
+
+    @Param({"2.0", "1.5"})
+    private double exponent;
+
+    @Param({"256"})
+    private int intervalNum;
+
+    private double[] sizes;
+    private ISizeDroppingProbability exact;
+    private ISizeDroppingProbability linear;
+    private ISizeDroppingProbability cubic;
+
+    @Setup
+    public void setup() {
+        exact = IDroppingProbability.inverseSize(1 / 200.0, SyntheticLot.NOMINAL[1], exponent);
+        linear = TabulatedDroppingProbability.of(exact, 0.5, 8, intervalNum,
+                TabulatedDroppingProbability.Interpolation.LINEAR);
+        cubic = TabulatedDroppingProbability.of(exact, 0.5, 8, intervalNum,
+                TabulatedDroppingProbability.Interpolation.CUBIC);
+        SplittableRandom random = new SplittableRandom(20181226L);
+        sizes = new double[SIZE_NUM];
+        for (int i = 0; i < SIZE_NUM; i++) {
+            sizes[i] = random.nextDouble(0.5, 8);
+        }
+    }
+
+    private double lookup(ISizeDroppingProbability droppingProbability) {
+        double sum = 0;
+        for (double size : sizes) {
+            sum += droppingProbability.getDroppingProbability(size);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE_NUM)
+    public double exact() {
+        return lookup(exact);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE_NUM)
+    public double linear() {
+        return lookup(linear);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE_NUM)
+    public double cubic() {
+        return lookup(cubic);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.benchmark;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.fitting.QVLBaveBatchFitter;
+import cn.edu.gxust.jiweihuang.java.filature.bave.fitting.QVLBaveFitResult;
+import cn.edu.gxust.jiweihuang.java.filature.bave.fitting.QVLBaveFitter;
+import org.hipparchus.fitting.WeightedObservedPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The benchmarks of curve fitting of QVL bave.</p>
+ *
+ * <p>All fits start from the nominal parameters of synthetic lot, so that
+ * the benchmarks measure the optimizer and the model evaluation
+ * rather than the parameter guesser.</p>
+ */
+public class FittingBenchmark {
+
+    @State(Scope.Thread)
+    public static class SingleState {
+
+        private QVLBaveFitter fitter;
+        private List<WeightedObservedPoint> observations;
+        private double[] x;
+        private double[] y;
+        private double[] w;
+
+        @Setup
+        public void setup() {
+            fitter = QVLBaveFitter.create().withStartPoint(SyntheticLot.NOMINAL);
+            observations = SyntheticLot.observations(1, 20181212L).get(0);
+            int len = observations.size();
+            x = new double[len];
+            y = new double[len];
+            w = new double[len];
+            for (int i = 0; i < len; i++) {
+                x[i] = observations.get(i).getX();
+                y[i] = observations.get(i).getY();
+                w[i] = observations.get(i).getWeight();
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BatchState {
+
+        @Param({"1000", "10000", "100000"})
+        public int lotSize;
+
+        @Param({"1", "2", "4", "8"})
+        public int threads;
+
+        private ForkJoinPool pool;
+        private QVLBaveBatchFitter batchFitter;
+        private List<List<WeightedObservedPoint>> observationSets;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            pool = new ForkJoinPool(threads);
+            batchFitter = QVLBaveBatchFitter.create().withPool(pool).
+                    withFitter(QVLBaveFitter.create().withStartPoint(SyntheticLot.NOMINAL));
+            observationSets = SyntheticLot.observations(lotSize, 20181212L);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public double[] fitCollection(SingleState state) {
+        return state.fitter.fit(state.observations);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public double[] fitPrimitive(SingleState state) {
+        return state.fitter.fit(state.x, state.y, state.w);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    @Fork(1)
+    public List<QVLBaveFitResult> fitBatch(BatchState state) {
+        return state.batchFitter.fit(state.observationSets);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.benchmark;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBave;
+import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateIntegrableFunction;
+import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateIntegralFunction;
+import cn.edu.gxust.jiweihuang.java.math.function.univariate.Logistic;
+
+/**
+ * <p>The class {@code IntegrationAccuracy} is used for printing the relative error
+ * of every integration method against the analytic integral, it is
+ * the accuracy part of {@link IntegrationBenchmark}.</p>
+ */
+public final class IntegrationAccuracy {
+
+    private IntegrationAccuracy() {
+    }
+
+    public static void main(String[] args) {
+        double[] p = SyntheticLot.NOMINAL;
+        QVLBave bave = new QVLBave(p[0], p[1], p[2], p[3]);
+        Logistic logistic = new Logistic(p[1], 4.0 / (p[0] * (1 - p[3])), p[0] * p[3]);
+        print("QVLBave", bave, bave, 0, p[0]);
+        print("Logistic", logistic, logistic, 0, p[0]);
+    }
+
+    private static void print(String name, IUnivariateIntegrableFunction f, IUnivariateIntegralFunction analytic,
+                              double lowerX, double upperX) {
+        double exact = analytic.integrate(lowerX, upperX);
+        System.out.printf("%s, analytic integral = %.15e%n", name, exact);
+        System.out.printf("  %-28s %.3e%n", "romberg", error(f.integrateRomberg(lowerX, upperX), exact));
+        System.out.printf("  %-28s %.3e%n", "simpson", error(f.integrateSimpson(lowerX, upperX), exact));
+        System.out.printf("  %-28s %.3e%n", "trapezoid", error(f.integrateTrapezoid(lowerX, upperX), exact));
+        System.out.printf("  %-28s %.3e%n", "midPoint", error(f.integrateMidPoint(lowerX, upperX), exact));
+        System.out.printf("  %-28s %.3e%n", "iterativeLegendreGauss", error(f.integrateIterativeLegendreGauss(lowerX, upperX), exact));
+        System.out.printf("  %-28s %.3e%n", "gaussLegendre8", error(f.integrateGaussLegendre(8, lowerX, upperX), exact));
+        System.out.printf("  %-28s %.3e%n", "gaussLegendre16", error(f.integrateGaussLegendre(16, lowerX, upperX), exact));
+        System.out.printf("  %-28s %.3e%n", "gaussLegendre32", error(f.integrateGaussLegendre(32, lowerX, upperX), exact));
+        System.out.printf("  %-28s %.3e%n", "compositeGaussLegendre16x4", error(f.integrateGaussLegendre(16, 4, lowerX, upperX), exact));
+    }
+
+    private static double error(double value, double exact) {
+        return Math.abs(value - exact) / Math.abs(exact);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.benchmark;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBave;
+import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateIntegrableFunction;
+import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateIntegralFunction;
+import cn.edu.gxust.jiweihuang.java.math.function.univariate.Logistic;
+import org.hipparchus.analysis.integration.IterativeLegendreGaussIntegrator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The benchmarks of numerical and analytic integration over
+ * the whole range of QVL bave and logistic function.</p>
+ *
+ * <p>The {@code hipparchusIterativeLegendreGauss} benchmark creates a new
+ * {@code IterativeLegendreGaussIntegrator} per integral, it is the original
+ * behavior of {@code IUnivariateIntegrableFunction}. The accuracy of every
+ * method is printed by {@link IntegrationAccuracy}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntegrationBenchmark {
+
+    @Param({"QVLBave", "Logistic"})
+    public String function;
+
+    private IUnivariateIntegrableFunction f;
+    private IUnivariateIntegralFunction analytic;
+    private double lowerX;
+    private double upperX;
+
+    @Setup
+    public void setup() {
+        double[] p = SyntheticLot.NOMINAL;
+        if ("QVLBave".equals(function)) {
+            QVLBave bave = new QVLBave(p[0], p[1], p[2], p[3]);
+            f = bave;
+            analytic = bave;
+        } else {
+            Logistic logistic = new Logistic(p[1], 4.0 / (p[0] * (1 - p[3])), p[0] * p[3]);
+            f = logistic;
+            analytic = logistic;
+        }
+        lowerX = 0;
+        upperX = p[0];
+    }
+
+    @Benchmark
+    public double romberg() {
+        return f.integrateRomberg(lowerX, upperX);
+    }
+
+    @Benchmark
+    public double simpson() {
+        return f.integrateSimpson(lowerX, upperX);
+    }
+
+    @Benchmark
+    public double trapezoid() {
+        return f.integrateTrapezoid(lowerX, upperX);
+    }
+
+    @Benchmark
+    public double midPoint() {
+        return f.integrateMidPoint(lowerX, upperX);
+    }
+
+    @Benchmark
+    public double iterativeLegendreGauss() {
+        return f.integrateIterativeLegendreGauss(lowerX, upperX);
+    }
+
+    @Benchmark
+    public double hipparchusIterativeLegendreGauss() {
+        return new IterativeLegendreGaussIntegrator(IUnivariateIntegrableFunction.IterativeLegendreGaussN,
+                IterativeLegendreGaussIntegrator.DEFAULT_RELATIVE_ACCURACY,
+                IterativeLegendreGaussIntegrator.DEFAULT_ABSOLUTE_ACCURACY).
+                integrate(Integer.MAX_VALUE, f, lowerX, upperX);
+    }
+
+    @Benchmark
+    public double gaussLegendre8() {
+        return f.integrateGaussLegendre(8, lowerX, upperX);
+    }
+
+    @Benchmark
+    public double gaussLegendre16() {
+        return f.integrateGaussLegendre(16, lowerX, upperX);
+    }
+
+    @Benchmark
+    public double gaussLegendre32() {
+        return f.integrateGaussLegendre(32, lowerX, upperX);
+    }
+
+    @Benchmark
+    public double compositeGaussLegendre16x4() {
+        return f.integrateGaussLegendre(16, 4, lowerX, upperX);
+    }
+
+    @Benchmark
+    public double analytic() {
+        return analytic.integrate(lowerX, upperX);
+    }
+}
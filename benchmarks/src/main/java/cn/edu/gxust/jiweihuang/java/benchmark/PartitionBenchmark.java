@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.benchmark;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.partition.IDroppingProbability;
+import cn.edu.gxust.jiweihuang.java.filature.bave.partition.InverseTransformPartition;
+import cn.edu.gxust.jiweihuang.java.filature.bave.partition.Partition;
+import cn.edu.gxust.jiweihuang.java.filature.bave.partition.SegmentLengthDistribution;
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBaveDistribution;
+import cn.edu.gxust.jiweihuang.java.filature.cocoon.CocoonLot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The benchmarks of partitioning the baves of a lot into reelable
+ * segments, with the dropping probability depending on bave size.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PartitionBenchmark {
+
+    @Param({"10000"})
+    private int lotSize;
+
+    @Param({"1.0"})
+    private double stepLength;
+
+    @Param({"50"})
+    private double panelLength;
+
+    private CocoonLot lot;
+    private IDroppingProbability droppingProbability;
+
+    @Setup
+    public void setup() {
+        lot = CocoonLot.sample(QVLBaveDistribution.independent(SyntheticLot.NOMINAL, 0.1),
+                lotSize, new SplittableRandom(20181225L));
+        droppingProbability = IDroppingProbability.inverseSize(1 / 200.0, SyntheticLot.NOMINAL[1], 2);
+    }
+
+    @Benchmark
+    public SegmentLengthDistribution stepwise() {
+        return new Partition(droppingProbability, stepLength).partition(lot,
+                new SplittableRandom(20181225L), new SegmentLengthDistribution(10, 200));
+    }
+
+    @Benchmark
+    public SegmentLengthDistribution inverseTransform() {
+        return new InverseTransformPartition(droppingProbability, panelLength).partition(lot,
+                new SplittableRandom(20181225L), new SegmentLengthDistribution(10, 200));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.benchmark;
+
+import cn.edu.gxust.jiweihuang.java.math.function.univariate.ILogistic;
+import cn.edu.gxust.jiweihuang.java.math.function.univariate.IQuadraticVertex;
+import cn.edu.gxust.jiweihuang.java.math.function.univariate.IQuadraticVertexLogistic;
+import cn.edu.gxust.jiweihuang.java.math.function.univariate.Logistic;
+import cn.edu.gxust.jiweihuang.java.math.function.univariate.QuadraticVertex;
+
+/**
+ * <p>The class {@code PerCallQVLBave} is the reference implementation of QVL bave
+ * which derives the QVL coefficients and creates the component functions
+ * on every call, it is the same as the original {@code QVLBave}, and it is
+ * used as the baseline of benchmarks.</p>
+ */
+public class PerCallQVLBave implements IQuadraticVertexLogistic {
+
+    private static final long serialVersionUID = -4417366437129577745L;
+
+    private final double baveLength;
+    private final double initialSize;
+    private final double initialTerminalSizeRatio;
+    private final double maxSizePosBaveLengthRatio;
+
+    public PerCallQVLBave(double baveLength, double initialSize,
+                          double initialTerminalSizeRatio,
+                          double maxSizePosBaveLengthRatio) {
+        this.baveLength = baveLength;
+        this.initialSize = initialSize;
+        this.initialTerminalSizeRatio = initialTerminalSizeRatio;
+        this.maxSizePosBaveLengthRatio = maxSizePosBaveLengthRatio;
+    }
+
+    public double getMaxSizePos() {
+        return baveLength * maxSizePosBaveLengthRatio;
+    }
+
+    @Override
+    public IQuadraticVertex getQuadraticVertex() {
+        return new QuadraticVertex(getQuadraticVertexA(), getQuadraticVertexB(), getQuadraticVertexC());
+    }
+
+    @Override
+    public ILogistic getLogistic() {
+        return new Logistic(getLogisticM(), getLogisticK(), getLogisticX0());
+    }
+
+    @Override
+    public double getQuadraticVertexLogisticD() {
+        return initialTerminalSizeRatio * initialSize;
+    }
+
+    @Override
+    public double getQuadraticVertexA() {
+        return (initialSize * (1 + Math.exp(getLogisticK() * getMaxSizePos())) * (1 - initialTerminalSizeRatio)) / Math.pow(baveLength, 2.0);
+    }
+
+    @Override
+    public double getQuadraticVertexB() {
+        return baveLength;
+    }
+
+    @Override
+    public double getQuadraticVertexC() {
+        return .0;
+    }
+
+    @Override
+    public double getLogisticM() {
+        return 1.0;
+    }
+
+    @Override
+    public double getLogisticK() {
+        return 4.0 / (baveLength * (1 - maxSizePosBaveLengthRatio));
+    }
+
+    @Override
+    public double getLogisticX0() {
+        return getMaxSizePos();
+    }
+
+    @Override
+    public double value(double x) {
+        return (getLogisticM() * (getQuadraticVertexC() + getQuadraticVertexA() * Math.pow(-getQuadraticVertexB() + x, 2))) /
+                (1 + Math.exp(-getLogisticK() * (-getLogisticX0() + x))) + getQuadraticVertexLogisticD();
+    }
+
+    @Override
+    public double derivative(double x) {
+        return getLogistic().value(x) * getQuadraticVertex().derivative(x) +
+                getLogistic().derivative(x) * getQuadraticVertex().value(x);
+    }
+
+    @Override
+    public void values(double[] xs, double[] out, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            out[i] = value(xs[i]);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.benchmark;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBave;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The benchmarks of scalar and batch evaluation of QVL bave.</p>
+ *
+ * <p>The {@code perCall*} benchmarks use {@link PerCallQVLBave}, which derives
+ * the coefficients and creates the component functions on every call.
+ * Run with {@code -prof gc} to get the allocation rate (bytes/op).</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QVLBaveEvaluationBenchmark {
+
+    @Param({"1000"})
+    public int positionNum;
+
+    private QVLBave bave;
+    private PerCallQVLBave perCallBave;
+    private double[] positions;
+    private double[] sizes;
+    private double pos;
+
+    @Setup
+    public void setup() {
+        double[] p = SyntheticLot.NOMINAL;
+        bave = new QVLBave(p[0], p[1], p[2], p[3]);
+        perCallBave = new PerCallQVLBave(p[0], p[1], p[2], p[3]);
+        Random random = new Random(20181212L);
+        positions = new double[positionNum];
+        for (int i = 0; i < positionNum; i++) {
+            positions[i] = p[0] * i / positionNum;
+        }
+        sizes = new double[positionNum];
+        pos = p[0] * random.nextDouble();
+    }
+
+    @Benchmark
+    public double value() {
+        return bave.getBaveSize(pos);
+    }
+
+    @Benchmark
+    public double perCallValue() {
+        return perCallBave.value(pos);
+    }
+
+    @Benchmark
+    public double derivative() {
+        return bave.derivative(pos);
+    }
+
+    @Benchmark
+    public double perCallDerivative() {
+        return perCallBave.derivative(pos);
+    }
+
+    @Benchmark
+    public void denseScalar(Blackhole blackhole) {
+        for (int i = 0; i < positions.length; i++) {
+            sizes[i] = bave.getBaveSize(positions[i]);
+        }
+        blackhole.consume(sizes);
+    }
+
+    @Benchmark
+    public void denseBatch(Blackhole blackhole) {
+        bave.values(positions, sizes);
+        blackhole.consume(sizes);
+    }
+
+    @Benchmark
+    public void densePerCall(Blackhole blackhole) {
+        for (int i = 0; i < positions.length; i++) {
+            sizes[i] = perCallBave.value(positions[i]);
+        }
+        blackhole.consume(sizes);
+    }
+}
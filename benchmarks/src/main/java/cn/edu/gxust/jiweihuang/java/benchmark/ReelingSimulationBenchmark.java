@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.benchmark;
+
+import cn.edu.gxust.jiweihuang.java.filature.system.ReelingSystem;
+import cn.edu.gxust.jiweihuang.java.filature.system.ReelingSystemParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The benchmarks of reeling system simulation.</p>
+ *
+ * <p>A run simulates one hour of a 1000-end reeling machine, the result
+ * of run does not depend on the number of workers, so the scaling
+ * of wall time with {@code parallelism} is measured. The periodic size
+ * checks ({@code sizePredictionStep = 0}) are compared with the size checks
+ * at predicted crossings.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReelingSimulationBenchmark {
+
+    @Param({"1000"})
+    private int reelingThreadNum;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    @Param({"0", "10"})
+    private double sizePredictionStep;
+
+    @Benchmark
+    public long shift() {
+        ReelingSystem reelingSystem = new ReelingSystem(new ReelingSystemParameters()
+                .withReelingThreadNum(reelingThreadNum)
+                .withCocoonSupplierNum(reelingThreadNum / 8)
+                .withShiftDuration(3600)
+                .withParallelism(parallelism)
+                .withSizePredictionStep(sizePredictionStep));
+        reelingSystem.run();
+        return reelingSystem.getProcessedEventNum();
+    }
+}
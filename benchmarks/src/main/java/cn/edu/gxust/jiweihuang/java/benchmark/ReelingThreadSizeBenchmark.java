@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.benchmark;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.IBave;
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBave;
+import cn.edu.gxust.jiweihuang.java.filature.cocoon.Cocoon;
+import cn.edu.gxust.jiweihuang.java.filature.system.entity.ReelingThread;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The benchmarks of sampling the size of a reeling thread along
+ * its length, by the size at every sample time or by the size profile
+ * which is evaluated bave by bave.</p>
+ *
+ * <p>The cocoons are attached at time zero, so that all baves are
+ * reeled over the {@code sampleNum} samples, and the sizes of both
+ * methods are the same.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReelingThreadSizeBenchmark {
+
+    private static final double REELING_SPEED = 2.5;
+
+    @Param({"12"})
+    private int cocoonNum;
+
+    @Param({"500"})
+    private int sampleNum;
+
+    @Param({"1.0"})
+    private double resolution;
+
+    private ReelingThread reelingThread;
+    private double[] out;
+
+    @Setup
+    public void setup() {
+        reelingThread = new ReelingThread(0, null, null, REELING_SPEED, new SplittableRandom(20181223L));
+        for (final QVLBave bave : SyntheticLot.baves(cocoonNum, 20181223L)) {
+            Cocoon cocoon = new Cocoon() {
+                @Override
+                public IBave getBave() {
+                    return bave;
+                }
+            };
+            reelingThread.attach(cocoon, 0);
+        }
+        out = new double[sampleNum];
+    }
+
+    @Benchmark
+    public double[] sizeAtEverySample() {
+        for (int j = 0; j < sampleNum; j++) {
+            out[j] = reelingThread.getSize(j * resolution / REELING_SPEED);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] sizeProfile() {
+        reelingThread.getSizeProfile(0, resolution, out);
+        return out;
+    }
+}
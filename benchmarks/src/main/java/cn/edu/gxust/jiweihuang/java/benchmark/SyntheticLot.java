@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.benchmark;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBave;
+import org.hipparchus.fitting.WeightedObservedPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>The class {@code SyntheticLot} is used for generating the baves
+ * and the observations of bave size of a synthetic lot for benchmarks,
+ * the generation is deterministic for a given seed.</p>
+ */
+public final class SyntheticLot {
+
+    /**
+     * The nominal parameters {baveLength, initialSize,
+     * initialTerminalSizeRatio, maxSizePosBaveLengthRatio}, the same as
+     * the default of {@code ReelingSystemParameters}, which are the medians
+     * of the fitted parameters of the bundled lots.
+     */
+    public static final double[] NOMINAL = {770, 2.8, 0.35, 0.21};
+
+    public static final int OBSERVATION_NUM = 20;
+
+    private SyntheticLot() {
+    }
+
+    public static QVLBave[] baves(int num, long seed) {
+        Random random = new Random(seed);
+        QVLBave[] baves = new QVLBave[num];
+        for (int i = 0; i < num; i++) {
+            baves[i] = new QVLBave(NOMINAL[0] * (1 + 0.1 * random.nextGaussian()),
+                    NOMINAL[1] * (1 + 0.1 * random.nextGaussian()),
+                    NOMINAL[2] * (1 + 0.05 * random.nextGaussian()),
+                    NOMINAL[3] * (1 + 0.1 * random.nextGaussian()));
+        }
+        return baves;
+    }
+
+    /**
+     * @return the observations at the middle of {@code OBSERVATION_NUM} equal
+     * segments of every bave, with 1% relative noise.
+     */
+    public static List<List<WeightedObservedPoint>> observations(int num, long seed) {
+        Random random = new Random(seed + 1);
+        List<List<WeightedObservedPoint>> observationSets = new ArrayList<>(num);
+        for (QVLBave bave : baves(num, seed)) {
+            List<WeightedObservedPoint> observations = new ArrayList<>(OBSERVATION_NUM);
+            double step = bave.getBaveLength() / OBSERVATION_NUM;
+            for (int i = 0; i < OBSERVATION_NUM; i++) {
+                double pos = (i + 0.5) * step;
+                observations.add(new WeightedObservedPoint(1.0, pos,
+                        bave.getBaveSize(pos) * (1 + 0.01 * random.nextGaussian())));
+            }
+            observationSets.add(observations);
+        }
+        return observationSets;
+    }
+}
@@ -22,4 +22,32 @@ public interface IBave extends Serializable {
     double getBaveLength();
 
     double getBaveSize(double pos);
+
+    /**
+     * Get the derivative of bave size with respect to position, the default
+     * is a central difference, the implementations with an analytic
+     * derivative override it.
+     *
+     * @param pos the position on bave.
+     * @return the derivative of bave size at position.
+     */
+    default double getBaveSizeDerivative(double pos) {
+        final double h = 1e-6 * Math.max(1, Math.abs(pos));
+        return (getBaveSize(pos + h) - getBaveSize(pos - h)) / (2 * h);
+    }
+
+    /**
+     * Get the sizes of bave at a batch of positions, the implementations
+     * override it to read their parameters once for the whole batch.
+     *
+     * @param pos    the positions on bave.
+     * @param out    the array for receiving the sizes of bave.
+     * @param offset the start index in {@code pos} and {@code out}.
+     * @param length the number of sizes to get.
+     */
+    default void getBaveSizes(double[] pos, double[] out, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            out[i] = getBaveSize(pos[i]);
+        }
+    }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.filature.bave.fitting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * <p>The class {@code BaveObservationReader} is used for reading
+ * the observations of bave size of a lot row by row, every row is
+ * a triple {cocoonID, position, size}.</p>
+ *
+ * <p>Two formats are supported:</p>
+ * <ul>
+ * <li>CSV: a line of {@code cocoonID,position,size} per row, blank lines
+ * and a first line which does not start with a digit or sign are skipped.</li>
+ * <li>binary: a {@code long} and two {@code double}s per row, written by
+ * {@code DataOutput} in big-endian.</li>
+ * </ul>
+ */
+public abstract class BaveObservationReader implements Closeable {
+
+    protected long cocoonID;
+    protected double position;
+    protected double size;
+
+    public static BaveObservationReader csv(Reader reader) {
+        return new CsvReader(reader);
+    }
+
+    public static BaveObservationReader binary(InputStream in) {
+        return new BinaryReader(in);
+    }
+
+    /**
+     * Read the next row.
+     *
+     * @return false if there is no more row.
+     * @throws IOException if the row can not be read or parsed.
+     */
+    public abstract boolean next() throws IOException;
+
+    public long getCocoonID() {
+        return cocoonID;
+    }
+
+    public double getPosition() {
+        return position;
+    }
+
+    public double getSize() {
+        return size;
+    }
+
+    private static final class CsvReader extends BaveObservationReader {
+
+        private final BufferedReader reader;
+        private long lineNum = 0;
+
+        CsvReader(Reader reader) {
+            this.reader = reader instanceof BufferedReader ?
+                    (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                char c = line.charAt(0);
+                if (lineNum == 1 && !(Character.isDigit(c) || c == '-' || c == '+')) {
+                    continue;
+                }
+                int first = line.indexOf(',');
+                int second = first < 0 ? -1 : line.indexOf(',', first + 1);
+                if (second < 0) {
+                    throw new IOException(String.format(
+                            "Expected {cocoonID,position,size},but got {%s} at line %d.", line, lineNum));
+                }
+                try {
+                    cocoonID = Long.parseLong(line.substring(0, first).trim());
+                    position = Double.parseDouble(line.substring(first + 1, second));
+                    size = Double.parseDouble(line.substring(second + 1));
+                } catch (NumberFormatException e) {
+                    throw new IOException(String.format(
+                            "Expected {cocoonID,position,size},but got {%s} at line %d.", line, lineNum), e);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class BinaryReader extends BaveObservationReader {
+
+        private final DataInputStream in;
+
+        BinaryReader(InputStream in) {
+            this.in = new DataInputStream(in instanceof BufferedInputStream ?
+                    in : new BufferedInputStream(in, 1 << 16));
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            long id;
+            try {
+                id = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            cocoonID = id;
+            position = in.readDouble();
+            size = in.readDouble();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
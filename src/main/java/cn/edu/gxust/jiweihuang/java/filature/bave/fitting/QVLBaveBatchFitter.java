@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.edu.gxust.jiweihuang.java.filature.bave.fitting;
+
+import org.hipparchus.exception.MathRuntimeException;
+import org.hipparchus.fitting.WeightedObservedPoint;
+import org.hipparchus.optim.nonlinear.vector.leastsquares.LeastSquaresOptimizer;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>The class {@code QVLBaveBatchFitter} is used for fitting
+ * the baves of a lot in parallel.</p>
+ *
+ * <p>The observation sets are divided recursively and fitted on
+ * a fork-join pool, every bave is fitted by the same {@code QVLBaveFitter},
+ * and the results are returned in the order of observation sets.</p>
+ */
+public class QVLBaveBatchFitter {
+
+    /**
+     * The number of observation sets below which a task is not divided.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 4;
+
+    private final QVLBaveFitter fitter;
+
+    private final ForkJoinPool pool;
+
+    private final QVLBaveWarmStart warmStart;
+
+    private QVLBaveBatchFitter(QVLBaveFitter fitter, ForkJoinPool pool, QVLBaveWarmStart warmStart) {
+        this.fitter = fitter;
+        this.pool = pool;
+        this.warmStart = warmStart;
+    }
+
+    public static QVLBaveBatchFitter create() {
+        return new QVLBaveBatchFitter(QVLBaveFitter.create(), ForkJoinPool.commonPool(), null);
+    }
+
+    public QVLBaveBatchFitter withFitter(QVLBaveFitter newFitter) {
+        return new QVLBaveBatchFitter(newFitter, pool, warmStart);
+    }
+
+    public QVLBaveBatchFitter withPool(ForkJoinPool newPool) {
+        return new QVLBaveBatchFitter(fitter, newPool, warmStart);
+    }
+
+    /**
+     * @param newWarmStart the warm start shared by the fits, or null to start
+     *                     every fit from the start point of fitter.
+     */
+    public QVLBaveBatchFitter withWarmStart(QVLBaveWarmStart newWarmStart) {
+        return new QVLBaveBatchFitter(fitter, pool, newWarmStart);
+    }
+
+    /**
+     * Fit every observation set in parallel.
+     *
+     * @param observationSets the observation sets, one for each bave.
+     * @return the results of fitting, in the order of observation sets.
+     */
+    public List<QVLBaveFitResult> fit(List<? extends Collection<WeightedObservedPoint>> observationSets) {
+        final QVLBaveFitResult[] results = new QVLBaveFitResult[observationSets.size()];
+        if (results.length > 0) {
+            pool.invoke(new FitTask(observationSets, results, 0, results.length));
+        }
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * Fit one observation set, the failure of fitting is kept in the result.
+     *
+     * @param index        the index of observation set.
+     * @param observations the observations of bave size.
+     * @return the result of fitting.
+     */
+    public QVLBaveFitResult fitOne(int index, Collection<WeightedObservedPoint> observations) {
+        if (warmStart != null) {
+            final int len = observations.size();
+            final double[] x = new double[len];
+            final double[] y = new double[len];
+            final double[] w = new double[len];
+            int i = 0;
+            for (WeightedObservedPoint obs : observations) {
+                x[i] = obs.getX();
+                y[i] = obs.getY();
+                w[i] = obs.getWeight();
+                ++i;
+            }
+            return fitOne(index, x, y, w);
+        }
+        try {
+            LeastSquaresOptimizer.Optimum optimum = fitter.optimize(observations);
+            return QVLBaveFitResult.converged(index, optimum.getPoint().toArray(),
+                    optimum.getIterations(), optimum.getEvaluations());
+        } catch (MathRuntimeException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            return QVLBaveFitResult.failed(index, e.getMessage());
+        }
+    }
+
+    /**
+     * Fit one bave given by primitive arrays, the failure of fitting
+     * is kept in the result.
+     *
+     * @param index the index of bave.
+     * @param x     the positions of observations.
+     * @param y     the bave sizes of observations.
+     * @param w     the weights of observations.
+     * @return the result of fitting.
+     */
+    public QVLBaveFitResult fitOne(int index, double[] x, double[] y, double[] w) {
+        try {
+            LeastSquaresOptimizer.Optimum optimum = warmStart != null ?
+                    warmStart.optimize(fitter, x, y, w) : fitter.optimize(x, y, w);
+            return QVLBaveFitResult.converged(index, optimum.getPoint().toArray(),
+                    optimum.getIterations(), optimum.getEvaluations());
+        } catch (MathRuntimeException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            return QVLBaveFitResult.failed(index, e.getMessage());
+        }
+    }
+
+    public QVLBaveFitter getFitter() {
+        return fitter;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public QVLBaveWarmStart getWarmStart() {
+        return warmStart;
+    }
+
+    private final class FitTask extends RecursiveAction {
+
+        private static final long serialVersionUID = -2364937474153416718L;
+
+        private final List<? extends Collection<WeightedObservedPoint>> observationSets;
+        private final QVLBaveFitResult[] results;
+        private final int from;
+        private final int to;
+
+        private FitTask(List<? extends Collection<WeightedObservedPoint>> observationSets,
+                        QVLBaveFitResult[] results, int from, int to) {
+            this.observationSets = observationSets;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    results[i] = fitOne(i, observationSets.get(i));
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new FitTask(observationSets, results, from, mid),
+                        new FitTask(observationSets, results, mid, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.edu.gxust.jiweihuang.java.filature.bave.fitting;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBave;
+
+import java.util.Arrays;
+
+/**
+ * The class {@code QVLBaveFitResult} is used for representing
+ * the result of fitting one bave in batch fitting, it includes
+ * the fitted parameters and the state of optimizer.
+ */
+public final class QVLBaveFitResult {
+
+    private final int index;
+    private final double[] parameters;
+    private final boolean converged;
+    private final int iterations;
+    private final int evaluations;
+    private final String failure;
+
+    private QVLBaveFitResult(int index, double[] parameters, boolean converged,
+                             int iterations, int evaluations, String failure) {
+        this.index = index;
+        this.parameters = parameters;
+        this.converged = converged;
+        this.iterations = iterations;
+        this.evaluations = evaluations;
+        this.failure = failure;
+    }
+
+    public static QVLBaveFitResult converged(int index, double[] parameters,
+                                             int iterations, int evaluations) {
+        return new QVLBaveFitResult(index, parameters.clone(), true,
+                iterations, evaluations, null);
+    }
+
+    public static QVLBaveFitResult failed(int index, String failure) {
+        return new QVLBaveFitResult(index, null, false, 0, 0, failure);
+    }
+
+    /**
+     * @return the index of observation set in batch.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return whether the fitting converged.
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * @return the fitted parameters {baveLength, initialSize,
+     * initialTerminalSizeRatio, maxSizePosBaveLengthRatio},
+     * or {@code null} if the fitting did not converge.
+     */
+    public double[] getParameters() {
+        return parameters == null ? null : parameters.clone();
+    }
+
+    /**
+     * @return the fitted bave, or {@code null} if the fitting did not converge.
+     */
+    public QVLBave getBave() {
+        return parameters == null ? null :
+                new QVLBave(parameters[0], parameters[1], parameters[2], parameters[3]);
+    }
+
+    /**
+     * @return the number of iterations of optimizer.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return the number of evaluations of model function.
+     */
+    public int getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * @return the reason of failure, or {@code null} if the fitting converged.
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return "QVLBaveFitResult{" +
+                "index=" + index +
+                ", parameters=" + Arrays.toString(parameters) +
+                ", converged=" + converged +
+                ", iterations=" + iterations +
+                ", evaluations=" + evaluations +
+                ", failure=" + failure +
+                '}';
+    }
+}
@@ -18,11 +18,21 @@ package cn.edu.gxust.jiweihuang.java.filature.bave.fitting;
 
 
 import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBave;
+import cn.edu.gxust.jiweihuang.java.metrics.Counter;
+import cn.edu.gxust.jiweihuang.java.metrics.Histogram;
+import cn.edu.gxust.jiweihuang.java.metrics.Metrics;
 import org.hipparchus.fitting.AbstractCurveFitter;
 import org.hipparchus.fitting.WeightedObservedPoint;
-import org.hipparchus.linear.DiagonalMatrix;
+import org.hipparchus.linear.ArrayRealVector;
+import org.hipparchus.linear.BlockRealMatrix;
+import org.hipparchus.linear.RealMatrix;
+import org.hipparchus.linear.RealVector;
 import org.hipparchus.optim.nonlinear.vector.leastsquares.LeastSquaresBuilder;
+import org.hipparchus.optim.nonlinear.vector.leastsquares.LeastSquaresOptimizer;
 import org.hipparchus.optim.nonlinear.vector.leastsquares.LeastSquaresProblem;
+import org.hipparchus.optim.nonlinear.vector.leastsquares.MultivariateJacobianFunction;
+import org.hipparchus.util.MathUtils;
+import org.hipparchus.util.Pair;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -31,6 +41,11 @@ import java.util.List;
 public class QVLBaveFitter extends AbstractCurveFitter {
     private static final QVLBave.Parametric FUNCTION = new QVLBave.Parametric();
 
+    private static final Counter FITS = Metrics.counter("fitting.fits");
+    private static final Counter FAILED_FITS = Metrics.counter("fitting.failedFits");
+    private static final Histogram FIT_ITERATIONS = Metrics.histogram("fitting.iterations");
+    private static final Histogram FIT_NANOS = Metrics.histogram("fitting.nanos");
+
     private final double[] initialGuess;
 
     private final int maxIter;
@@ -57,40 +72,159 @@ public class QVLBaveFitter extends AbstractCurveFitter {
     protected LeastSquaresProblem getProblem(Collection<WeightedObservedPoint> observations) {
         // Prepare least-squares problem.
         final int len = observations.size();
+        final double[] x = new double[len];
         final double[] target = new double[len];
         final double[] weights = new double[len];
         int i = 0;
         for (WeightedObservedPoint obs : observations) {
+            x[i] = obs.getX();
             target[i] = obs.getY();
             weights[i] = obs.getWeight();
             ++i;
         }
-        final TheoreticalValuesFunction model
-                = new TheoreticalValuesFunction(FUNCTION,
-                observations);
+        return getProblem(x, target, weights);
+    }
+
+    /**
+     * Set up the least-squares problem from primitive arrays, the model and
+     * its Jacobian are evaluated over the arrays directly, so that no
+     * {@code WeightedObservedPoint} is created.
+     *
+     * <p>The weights are folded into the problem, the target values, the model
+     * values and the rows of Jacobian are multiplied by the square roots of
+     * weights, so that the optimizer builds no weighted copy of Jacobian. An
+     * evaluation fills one value array and the blocks of one {@code BlockRealMatrix},
+     * that is, a few arrays rather than an array per observation.</p>
+     *
+     * @param x the positions of observations.
+     * @param y the bave sizes of observations.
+     * @param w the weights of observations.
+     * @return the least-squares problem.
+     */
+    protected LeastSquaresProblem getProblem(final double[] x, final double[] y, final double[] w) {
+        MathUtils.checkNotNull(x);
+        MathUtils.checkNotNull(y);
+        MathUtils.checkNotNull(w);
+        MathUtils.checkDimension(y.length, x.length);
+        MathUtils.checkDimension(w.length, x.length);
+        final int len = x.length;
+        final double[] sqrtWeights = new double[len];
+        final double[] target = new double[len];
+        for (int i = 0; i < len; i++) {
+            sqrtWeights[i] = Math.sqrt(w[i]);
+            target[i] = sqrtWeights[i] * y[i];
+        }
+        final MultivariateJacobianFunction model = new MultivariateJacobianFunction() {
+            @Override
+            public Pair<RealVector, RealMatrix> value(RealVector point) {
+                final double[] p = point.toArray();
+                final double[] values = new double[len];
+                final double[][] blocks = BlockRealMatrix.createBlocksLayout(len, 4);
+                final double[] gradient = new double[4];
+                for (int i = 0; i < len; i++) {
+                    final double sqrtWeight = sqrtWeights[i];
+                    values[i] = sqrtWeight * FUNCTION.valueAndGradient(x[i], p, gradient);
+                    final double[] block = blocks[i / BlockRealMatrix.BLOCK_SIZE];
+                    final int offset = (i % BlockRealMatrix.BLOCK_SIZE) * 4;
+                    for (int j = 0; j < 4; j++) {
+                        block[offset + j] = sqrtWeight * gradient[j];
+                    }
+                }
+                return new Pair<RealVector, RealMatrix>(new ArrayRealVector(values, false),
+                        new BlockRealMatrix(len, 4, blocks, false));
+            }
+        };
 
         final double[] startPoint = initialGuess != null ?
                 initialGuess :
                 // Compute estimation.
-                new QVLBaveFitter.ParameterGuesser(observations).guess();
+                new QVLBaveFitter.ParameterGuesser(x, y).guess();
 
-        // Return a new optimizer set up to fit a Gaussian curve to the
-        // observed points.
         return new LeastSquaresBuilder().
                 maxEvaluations(Integer.MAX_VALUE).
                 maxIterations(maxIter).
                 start(startPoint).
                 target(target).
-                weight(new DiagonalMatrix(weights)).
-                model(model.getModelFunction(), model.getModelFunctionJacobian()).
+                model(model).
                 build();
     }
 
+    /**
+     * Fit the observations given by primitive arrays.
+     *
+     * @param x the positions of observations.
+     * @param y the bave sizes of observations.
+     * @param w the weights of observations.
+     * @return the fitted parameters.
+     */
+    public double[] fit(double[] x, double[] y, double[] w) {
+        return optimize(x, y, w).getPoint().toArray();
+    }
+
+    /**
+     * Fit the observations given by primitive arrays and keep
+     * the state of optimizer.
+     *
+     * @param x the positions of observations.
+     * @param y the bave sizes of observations.
+     * @param w the weights of observations.
+     * @return the optimum of least-squares problem.
+     */
+    public LeastSquaresOptimizer.Optimum optimize(double[] x, double[] y, double[] w) {
+        return optimize(getProblem(x, y, w));
+    }
+
+    public QVLBave getQVLFunctionBave(double[] x, double[] y, double[] w) {
+        double[] p = this.fit(x, y, w);
+        return new QVLBave(p[0], p[1], p[2], p[3]);
+    }
+
     public QVLBave getQVLFunctionBave(Collection<WeightedObservedPoint> observations) {
         double[] p = this.fit(observations);
         return new QVLBave(p[0], p[1], p[2], p[3]);
     }
 
+    /**
+     * Fit the observations and keep the state of optimizer,
+     * for instance, the number of iterations and evaluations.
+     *
+     * @param observations the observations of bave size.
+     * @return the optimum of least-squares problem.
+     */
+    public LeastSquaresOptimizer.Optimum optimize(Collection<WeightedObservedPoint> observations) {
+        return optimize(getProblem(observations));
+    }
+
+    @Override
+    public double[] fit(Collection<WeightedObservedPoint> observations) {
+        return optimize(observations).getPoint().toArray();
+    }
+
+    /**
+     * Solve the least-squares problem, and record the fit to
+     * {@code Metrics} if it is enabled: the fits, the failed fits,
+     * the iterations and the wall time of fit.
+     *
+     * @param problem the least-squares problem.
+     * @return the optimum of least-squares problem.
+     */
+    private LeastSquaresOptimizer.Optimum optimize(LeastSquaresProblem problem) {
+        if (!Metrics.ENABLED) {
+            return getOptimizer().optimize(problem);
+        }
+        long begin = System.nanoTime();
+        try {
+            LeastSquaresOptimizer.Optimum optimum = getOptimizer().optimize(problem);
+            FIT_NANOS.record(System.nanoTime() - begin);
+            FIT_ITERATIONS.record(optimum.getIterations());
+            FITS.increment();
+            return optimum;
+        } catch (RuntimeException e) {
+            FAILED_FITS.increment();
+            throw e;
+        }
+    }
+
     public static class ParameterGuesser {
 
         private final double baveLength;
@@ -108,6 +242,26 @@ public class QVLBaveFitter extends AbstractCurveFitter {
             this.maxSizePosBaveLengthRatio = maxSizePos / baveLength;
         }
 
+        /**
+         * Guess the parameters from primitive arrays, the arrays
+         * are not modified, the sorted copies are used.
+         *
+         * @param x the positions of observations.
+         * @param y the bave sizes of observations.
+         */
+        public ParameterGuesser(double[] x, double[] y) {
+            MathUtils.checkDimension(y.length, x.length);
+            double[] xSorted = x.clone();
+            double[] ySorted = y.clone();
+            sortObservations(xSorted, ySorted);
+            this.baveLength = guessBaveLength(xSorted);
+            this.initialSize = guessInitialSize(xSorted, ySorted);
+            double terminalSize = guessTerminalSize(xSorted, ySorted);
+            double maxSizePos = guessMaxSizePos(xSorted, ySorted);
+            this.initialTerminalSizeRatio = terminalSize / initialSize;
+            this.maxSizePosBaveLengthRatio = maxSizePos / baveLength;
+        }
+
         public double[] guess() {
             return new double[]{baveLength, initialSize, initialTerminalSizeRatio, maxSizePosBaveLengthRatio};
         }
@@ -147,6 +301,60 @@ public class QVLBaveFitter extends AbstractCurveFitter {
             return observations;
         }
 
+        /**
+         * Sort the observations given by primitive arrays with respect
+         * to the abscissa, the arrays are reordered in place.
+         *
+         * @param x the positions of observations.
+         * @param y the bave sizes of observations.
+         */
+        public static void sortObservations(double[] x, double[] y) {
+            // The same insertion sort as above, the samples are almost always sorted.
+            final int len = x.length;
+            for (int j = 1; j < len; j++) {
+                final double currX = x[j];
+                final double currY = y[j];
+                int i = j - 1;
+                while (i >= 0 && currX < x[i]) {
+                    x[i + 1] = x[i];
+                    y[i + 1] = y[i];
+                    i--;
+                }
+                x[i + 1] = currX;
+                y[i + 1] = currY;
+            }
+        }
+
+        public static double guessBaveLength(double[] x) {
+            int len = x.length;
+            return x[len - 1] + (x[len - 2] - x[len - 1]) / 2.0;
+        }
+
+        public static double guessInitialSize(double[] x, double[] y) {
+            double length = x[0] - (x[1] - x[0]) / 2.0;
+            double alpha = Math.abs(y[1] - y[0]) / Math.abs(x[1] - x[0]);
+            return y[0] - length * alpha;
+        }
+
+        public static double guessTerminalSize(double[] x, double[] y) {
+            int len = x.length;
+            double length = x[len - 1] + (x[len - 2] - x[len - 1]) * 0.5;
+            double alpha = Math.abs(y[len - 2] - y[len - 1]) / Math.abs(x[len - 2] - x[len - 1]);
+            return y[len - 1] - length * alpha;
+        }
+
+        public static double guessMaxSizePos(double[] x, double[] y) {
+            double max = y[0];
+            double maxPos = x[0];
+            for (int i = 0; i < x.length; i++) {
+                if (y[i] > max) {
+                    max = y[i];
+                    maxPos = x[i];
+                }
+            }
+            return maxPos;
+        }
+
         public static double guessBaveLength(List<WeightedObservedPoint> observations) {
             int len = observations.size();
             double length = observations.get(len - 1).getX() + (observations.get(len - 2).getX() - observations.get(len - 1).getX()) / 2.0;
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.filature.bave.fitting;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>The class {@code QVLBaveStreamFitter} is used for fitting
+ * the baves of a lot from a stream of observations.</p>
+ *
+ * <p>The rows of stream are read incrementally, the contiguous rows
+ * with the same cocoon identifier are grouped as the observations
+ * of a bave, and every completed bave is fitted on a pool while
+ * the stream is being read. At most {@code maxInFlight} baves are
+ * read but not yet fitted, the reading waits otherwise, so the memory
+ * does not depend on the length of stream. The results are passed to
+ * a {@link ResultListener} in the order they finish.</p>
+ */
+public class QVLBaveStreamFitter {
+
+    /**
+     * The listener receiving the results of fitting, it is called
+     * by one thread at a time, so it needs not be thread-safe.
+     */
+    public interface ResultListener {
+        /**
+         * @param cocoonID the identifier of cocoon.
+         * @param result   the result of fitting, whose index is the
+         *                 sequence number of bave in stream.
+         * @throws IOException if the result can not be written.
+         */
+        void accept(long cocoonID, QVLBaveFitResult result) throws IOException;
+    }
+
+    private final QVLBaveBatchFitter batchFitter;
+
+    private final int maxInFlight;
+
+    private QVLBaveStreamFitter(QVLBaveBatchFitter batchFitter, int maxInFlight) {
+        this.batchFitter = batchFitter;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public static QVLBaveStreamFitter create() {
+        QVLBaveBatchFitter batchFitter = QVLBaveBatchFitter.create();
+        return new QVLBaveStreamFitter(batchFitter, 4 * batchFitter.getPool().getParallelism());
+    }
+
+    public QVLBaveStreamFitter withFitter(QVLBaveFitter newFitter) {
+        return new QVLBaveStreamFitter(batchFitter.withFitter(newFitter), maxInFlight);
+    }
+
+    public QVLBaveStreamFitter withPool(ForkJoinPool newPool) {
+        return new QVLBaveStreamFitter(batchFitter.withPool(newPool), maxInFlight);
+    }
+
+    public QVLBaveStreamFitter withWarmStart(QVLBaveWarmStart newWarmStart) {
+        return new QVLBaveStreamFitter(batchFitter.withWarmStart(newWarmStart), maxInFlight);
+    }
+
+    public QVLBaveStreamFitter withMaxInFlight(int newMaxInFlight) {
+        if (newMaxInFlight <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {maxInFlight > 0},but got {maxInFlight = %d}.", newMaxInFlight));
+        }
+        return new QVLBaveStreamFitter(batchFitter, newMaxInFlight);
+    }
+
+    /**
+     * Fit all baves of stream, it returns when all results are passed to listener.
+     *
+     * @param reader   the reader of observations, it is not closed.
+     * @param listener the listener receiving the results.
+     * @return the number of baves.
+     * @throws IOException if the stream can not be read, or the listener fails.
+     */
+    public long fit(BaveObservationReader reader, final ResultListener listener) throws IOException {
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Object listenerLock = new Object();
+        final ForkJoinPool pool = batchFitter.getPool();
+        long baveNum = 0;
+        double[] x = new double[64];
+        double[] y = new double[64];
+        int num = 0;
+        long cocoonID = 0;
+        try {
+            boolean more = reader.next();
+            while (more && failure.get() == null) {
+                cocoonID = reader.getCocoonID();
+                num = 0;
+                do {
+                    if (num == x.length) {
+                        x = Arrays.copyOf(x, 2 * num);
+                        y = Arrays.copyOf(y, 2 * num);
+                    }
+                    x[num] = reader.getPosition();
+                    y[num] = reader.getSize();
+                    num++;
+                } while ((more = reader.next()) && reader.getCocoonID() == cocoonID);
+
+                inFlight.acquire();
+                final int index = (int) baveNum++;
+                final long id = cocoonID;
+                final double[] bx = Arrays.copyOf(x, num);
+                final double[] by = Arrays.copyOf(y, num);
+                pool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            double[] w = new double[bx.length];
+                            Arrays.fill(w, 1.0);
+                            QVLBaveFitResult result = batchFitter.fitOne(index, bx, by, w);
+                            synchronized (listenerLock) {
+                                if (failure.get() == null) {
+                                    listener.accept(id, result);
+                                }
+                            }
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fitting the stream.");
+        } finally {
+            //Wait for the baves in flight, so no result is passed to listener after return.
+            inFlight.acquireUninterruptibly(maxInFlight);
+        }
+        Throwable e = failure.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return baveNum;
+    }
+
+    /**
+     * Create a listener writing the results as CSV lines of
+     * {@code cocoonID,converged,baveLength,initialSize,initialTerminalSizeRatio,
+     * maxSizePosBaveLengthRatio,iterations,evaluations}, the parameters
+     * are empty if the fitting did not converge. The header is written at once.
+     *
+     * @param writer the writer, it is not closed.
+     * @return the listener.
+     * @throws IOException if the header can not be written.
+     */
+    public static ResultListener csvWriter(final Writer writer) throws IOException {
+        writer.write("cocoonID,converged,baveLength,initialSize,initialTerminalSizeRatio," +
+                "maxSizePosBaveLengthRatio,iterations,evaluations\n");
+        return new ResultListener() {
+            private final StringBuilder line = new StringBuilder(128);
+
+            @Override
+            public void accept(long cocoonID, QVLBaveFitResult result) throws IOException {
+                line.setLength(0);
+                line.append(cocoonID).append(',').append(result.isConverged());
+                double[] p = result.getParameters();
+                for (int i = 0; i < 4; i++) {
+                    line.append(',');
+                    if (p != null) {
+                        line.append(p[i]);
+                    }
+                }
+                line.append(',').append(result.getIterations())
+                        .append(',').append(result.getEvaluations()).append('\n');
+                writer.write(line.toString());
+            }
+        };
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.filature.bave.fitting;
+
+import org.hipparchus.exception.MathRuntimeException;
+import org.hipparchus.optim.nonlinear.vector.leastsquares.LeastSquaresOptimizer;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>The class {@code QVLBaveWarmStart} is used for fitting the baves
+ * of a lot from the solutions of the baves fitted before.</p>
+ *
+ * <p>The baves of a lot are very similar, so a fit is started from:</p>
+ * <ul>
+ * <li>{@code LOT_MEDIAN}: the median of the recent solutions, parameter by parameter.</li>
+ * <li>{@code NEAREST_NEIGHBOUR}: the solution of the recent bave whose guessed
+ * parameters are the nearest to the guessed parameters of this bave.</li>
+ * </ul>
+ * <p>A warm fit is limited to {@code maxWarmIterations} iterations, if it
+ * fails or its solution is not a valid QVL bave, that is, a parameter is not
+ * positive or {@code maxSizePosBaveLengthRatio} is not less than one, the bave
+ * is fitted again by the given fitter, that is, from its start point or from
+ * the guessed parameters of {@link QVLBaveFitter.ParameterGuesser}. Until
+ * {@code minSolutions} solutions are collected, the baves are fitted by the
+ * given fitter too. Only the solutions which are valid QVL baves are collected.</p>
+ *
+ * <p>The recent solutions are kept in a window of {@code windowSize}.
+ * It is thread-safe, the fits of a batch can share it, and it counts
+ * the iterations of warm fits and fallbacks for reporting.</p>
+ */
+public class QVLBaveWarmStart {
+
+    /**
+     * The strategy of choosing the start point.
+     */
+    public enum Strategy {
+        LOT_MEDIAN,
+        NEAREST_NEIGHBOUR
+    }
+
+    private static final int PARAMETER_NUM = 4;
+
+    private final Strategy strategy;
+    private final int windowSize;
+    private final int minSolutions;
+    private final int maxWarmIterations;
+
+    //The window of recent guesses and solutions, guarded by this.
+    private final double[][] guesses;
+    private final double[][] solutions;
+    private int solutionNum = 0;
+    private long addedNum = 0;
+    private double[] median;
+
+    private final LongAdder coldFits = new LongAdder();
+    private final LongAdder coldIterations = new LongAdder();
+    private final LongAdder warmFits = new LongAdder();
+    private final LongAdder warmIterations = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder fallbackIterations = new LongAdder();
+
+    public QVLBaveWarmStart(Strategy strategy, int windowSize,
+                            int minSolutions, int maxWarmIterations) {
+        if (windowSize <= 0 || minSolutions <= 0 || minSolutions > windowSize || maxWarmIterations <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {0 < minSolutions <= windowSize,maxWarmIterations > 0}," +
+                            "but got {windowSize = %d,minSolutions = %d,maxWarmIterations = %d}.",
+                    windowSize, minSolutions, maxWarmIterations));
+        }
+        this.strategy = strategy;
+        this.windowSize = windowSize;
+        this.minSolutions = minSolutions;
+        this.maxWarmIterations = maxWarmIterations;
+        this.guesses = new double[windowSize][];
+        this.solutions = new double[windowSize][];
+    }
+
+    public QVLBaveWarmStart(Strategy strategy) {
+        this(strategy, 255, 8, 100);
+    }
+
+    /**
+     * Fit a bave with warm start.
+     *
+     * @param fitter the fitter of cold fits and fallbacks, whose start point is replaced by warm fits.
+     * @param x      the positions of observations.
+     * @param y      the bave sizes of observations.
+     * @param w      the weights of observations.
+     * @return the optimum of least-squares problem.
+     */
+    public LeastSquaresOptimizer.Optimum optimize(QVLBaveFitter fitter, double[] x, double[] y, double[] w) {
+        double[] guess = new QVLBaveFitter.ParameterGuesser(x, y).guess();
+        double[] start = startPoint(guess);
+        if (start != null) {
+            int spent = 0;
+            try {
+                LeastSquaresOptimizer.Optimum optimum = fitter.withStartPoint(start)
+                        .withMaxIterations(maxWarmIterations).optimize(x, y, w);
+                spent = optimum.getIterations();
+                double[] solution = optimum.getPoint().toArray();
+                if (isValid(solution)) {
+                    warmFits.increment();
+                    warmIterations.add(spent);
+                    add(guess, solution);
+                    return optimum;
+                }
+            } catch (MathRuntimeException e) {
+                spent = maxWarmIterations;
+            }
+            fallbacks.increment();
+            fallbackIterations.add(spent);
+        } else {
+            coldFits.increment();
+        }
+        LeastSquaresOptimizer.Optimum optimum = fitter.optimize(x, y, w);
+        if (start == null) {
+            coldIterations.add(optimum.getIterations());
+        } else {
+            fallbackIterations.add(optimum.getIterations());
+        }
+        double[] solution = optimum.getPoint().toArray();
+        if (isValid(solution)) {
+            add(guess, solution);
+        }
+        return optimum;
+    }
+
+    /**
+     * @param solution the fitted parameters.
+     * @return whether the parameters are a valid QVL bave.
+     */
+    public static boolean isValid(double[] solution) {
+        for (double p : solution) {
+            if (!(p > 0) || Double.isInfinite(p)) {
+                return false;
+            }
+        }
+        return solution[3] < 1;
+    }
+
+    private synchronized double[] startPoint(double[] guess) {
+        if (solutionNum < minSolutions) {
+            return null;
+        }
+        if (strategy == Strategy.LOT_MEDIAN) {
+            if (median == null) {
+                median = new double[PARAMETER_NUM];
+                double[] column = new double[solutionNum];
+                for (int j = 0; j < PARAMETER_NUM; j++) {
+                    for (int i = 0; i < solutionNum; i++) {
+                        column[i] = solutions[i][j];
+                    }
+                    Arrays.sort(column);
+                    median[j] = (solutionNum & 1) == 1 ? column[solutionNum / 2] :
+                            (column[solutionNum / 2 - 1] + column[solutionNum / 2]) / 2;
+                }
+            }
+            return median.clone();
+        }
+        int nearest = 0;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < solutionNum; i++) {
+            double distance = 0;
+            for (int j = 0; j < PARAMETER_NUM; j++) {
+                double d = (guesses[i][j] - guess[j]) / guess[j];
+                distance += d * d;
+            }
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = i;
+            }
+        }
+        return solutions[nearest].clone();
+    }
+
+    private synchronized void add(double[] guess, double[] solution) {
+        int slot = (int) (addedNum++ % windowSize);
+        guesses[slot] = guess;
+        solutions[slot] = solution;
+        solutionNum = Math.min(solutionNum + 1, windowSize);
+        median = null;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return the number of fits by the given fitter before
+     * enough solutions were collected.
+     */
+    public long getColdFits() {
+        return coldFits.sum();
+    }
+
+    public long getColdIterations() {
+        return coldIterations.sum();
+    }
+
+    /**
+     * @return the number of successful warm fits.
+     */
+    public long getWarmFits() {
+        return warmFits.sum();
+    }
+
+    public long getWarmIterations() {
+        return warmIterations.sum();
+    }
+
+    /**
+     * @return the number of warm fits which fell back to the given fitter.
+     */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * @return the iterations of failed warm fits and their fallbacks.
+     */
+    public long getFallbackIterations() {
+        return fallbackIterations.sum();
+    }
+
+    /**
+     * @return the mean iterations per fit, including the cold fits and fallbacks.
+     */
+    public double getMeanIterations() {
+        long fits = getColdFits() + getWarmFits() + getFallbacks();
+        return fits == 0 ? Double.NaN :
+                (double) (getColdIterations() + getWarmIterations() + getFallbackIterations()) / fits;
+    }
+
+    /**
+     * @param coldMeanIterations the mean iterations per fit of the given fitter,
+     *                           such as {@code getColdIterations() / getColdFits()}
+     *                           or measured on the same lot without warm start.
+     * @return the report of warm start.
+     */
+    public String getReport(double coldMeanIterations) {
+        double mean = getMeanIterations();
+        return String.format("Warm start %s: %d cold fits, %d warm fits, %d fallbacks, " +
+                        "%.2f iterations per fit against %.2f cold, %.1f%% fewer.",
+                strategy, getColdFits(), getWarmFits(), getFallbacks(),
+                mean, coldMeanIterations, 100 * (1 - mean / coldMeanIterations));
+    }
+}
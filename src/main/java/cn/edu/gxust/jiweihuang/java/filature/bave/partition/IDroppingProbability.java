@@ -1,4 +1,154 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
 package cn.edu.gxust.jiweihuang.java.filature.bave.partition;
 
+import cn.edu.gxust.jiweihuang.java.filature.bave.IBave;
+import cn.edu.gxust.jiweihuang.java.math.integration.LegendreGaussRule;
+
+/**
+ * <p>The interface {@code IDroppingProbability} is used for
+ * representing the dropping probability of bave in reeling, that is,
+ * the probability per unit length that the bave drops at a position,
+ * so that the bave is split into reelable segments there.</p>
+ *
+ * <p>The cumulative dropping probability from a position to another is
+ * the expected number of drops between them, the default methods integrate
+ * it numerically and invert it by Newton's method, and the implementations
+ * with analytic forms should override them.</p>
+ */
+@FunctionalInterface
 public interface IDroppingProbability {
+
+    /**
+     * @param bave the bave.
+     * @param pos  the position on bave.
+     * @return the dropping probability per unit length at position, it is non-negative.
+     */
+    double getDroppingProbability(IBave bave, double pos);
+
+    /**
+     * The accuracy of position found by {@link #getDropPosition(IBave, double, double, double)}.
+     */
+    double POSITION_ACCURACY = 1e-6;
+
+    /**
+     * The cumulative dropping probability, integrated by the 8-point Gauss-Legendre rule,
+     * which is accurate if the dropping probability is smooth from lower to upper position.
+     *
+     * @param bave     the bave.
+     * @param lowerPos the lower position on bave.
+     * @param upperPos the upper position on bave.
+     * @return the integral of dropping probability from lower to upper position.
+     * @throws IllegalArgumentException if the dropping probability is negative,
+     *                                  infinite or NaN at a node of the rule.
+     */
+    default double getCumulativeDroppingProbability(IBave bave, double lowerPos, double upperPos) {
+        return LegendreGaussRule.POINTS_8.integrate(pos -> {
+            final double probability = getDroppingProbability(bave, pos);
+            if (!(probability >= 0 && probability < Double.POSITIVE_INFINITY)) {
+                throw new IllegalArgumentException(String.format(
+                        "Expected {0 <= probability < Infinity},but got {probability = %s,pos = %s,bave = %s}.",
+                        probability, pos, bave));
+            }
+            return probability;
+        }, lowerPos, upperPos);
+    }
+
+    /**
+     * The inverse of {@link #getCumulativeDroppingProbability(IBave, double, double)} from
+     * lower position, found by Newton's method safeguarded by bisection.
+     *
+     * @param bave       the bave.
+     * @param lowerPos   the lower position on bave.
+     * @param upperPos   the upper position on bave, the cumulative dropping probability
+     *                   to it should not be less than {@code cumulative}.
+     * @param cumulative the cumulative dropping probability from lower position.
+     * @return the position in {@code [lowerPos,upperPos]}, where the cumulative dropping
+     * probability from lower position is {@code cumulative}.
+     */
+    default double getDropPosition(IBave bave, double lowerPos, double upperPos, double cumulative) {
+        double lower = lowerPos;
+        double upper = upperPos;
+        double rate = getDroppingProbability(bave, lowerPos);
+        double pos = rate > 0 ? lowerPos + cumulative / rate : Double.NaN;
+        for (int i = 0; i < 100 && upper - lower > POSITION_ACCURACY; i++) {
+            if (!(pos > lower && pos < upper)) {
+                pos = (lower + upper) / 2;
+            }
+            final double difference = getCumulativeDroppingProbability(bave, lowerPos, pos) - cumulative;
+            if (difference < 0) {
+                lower = pos;
+            } else if (difference > 0) {
+                upper = pos;
+            } else {
+                return pos;
+            }
+            rate = getDroppingProbability(bave, pos);
+            final double step = difference / rate;
+            if (Math.abs(step) <= POSITION_ACCURACY / 2) {
+                return pos - step;
+            }
+            pos -= step;
+        }
+        return (lower + upper) / 2;
+    }
+
+    /**
+     * @param probability the dropping probability per unit length.
+     * @return the dropping probability which does not depend on position.
+     */
+    static IDroppingProbability constant(final double probability) {
+        if (!(probability >= 0)) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {probability >= 0},but got {probability = %s}.", probability));
+        }
+        return new IDroppingProbability() {
+            @Override
+            public double getDroppingProbability(IBave bave, double pos) {
+                return probability;
+            }
+
+            @Override
+            public double getCumulativeDroppingProbability(IBave bave, double lowerPos, double upperPos) {
+                return probability * (upperPos - lowerPos);
+            }
+
+            @Override
+            public double getDropPosition(IBave bave, double lowerPos, double upperPos, double cumulative) {
+                return Math.min(lowerPos + cumulative / probability, upperPos);
+            }
+        };
+    }
+
+    /**
+     * The dropping probability grows as the bave gets thinner,
+     * {@code probability * (referenceSize / size) ^ exponent}.
+     *
+     * @param probability   the dropping probability per unit length at reference size.
+     * @param referenceSize the reference size of bave.
+     * @param exponent      the exponent of size.
+     * @return the dropping probability depending on the bave size at position.
+     */
+    static ISizeDroppingProbability inverseSize(final double probability,
+                                                final double referenceSize, final double exponent) {
+        if (!(probability >= 0) || !(referenceSize > 0)) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {probability >= 0,referenceSize > 0}," +
+                            "but got {probability = %s,referenceSize = %s}.", probability, referenceSize));
+        }
+        return size -> probability * Math.pow(referenceSize / size, exponent);
+    }
 }
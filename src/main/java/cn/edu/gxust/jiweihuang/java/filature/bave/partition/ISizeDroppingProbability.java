@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.filature.bave.partition;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.IBave;
+
+/**
+ * <p>The interface {@code ISizeDroppingProbability} is used for
+ * representing the dropping probability which depends on the bave
+ * size at position only, so that one curve serves all baves, and it
+ * can be tabulated by {@link TabulatedDroppingProbability}.</p>
+ */
+@FunctionalInterface
+public interface ISizeDroppingProbability extends IDroppingProbability {
+
+    /**
+     * @param size the bave size.
+     * @return the dropping probability per unit length at bave size.
+     */
+    double getDroppingProbability(double size);
+
+    @Override
+    default double getDroppingProbability(IBave bave, double pos) {
+        return getDroppingProbability(bave.getBaveSize(pos));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.filature.bave.partition;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.IBave;
+
+import java.util.SplittableRandom;
+
+/**
+ * <p>The class {@code InverseTransformPartition} is used for splitting
+ * baves into reelable segments by the continuous partition model, where
+ * the drops of a bave are the events of a Poisson process along the bave
+ * with the intensity given by {@link IDroppingProbability}, that is, the
+ * limit of the stepwise partition of {@link Partition} as the step
+ * length tends to zero.</p>
+ *
+ * <p>The next drop is sampled by inverse transform: the cumulative dropping
+ * probability from the last drop is exponentially distributed, so an
+ * exponential variate is drawn, the cumulative dropping probability is
+ * integrated panel by panel of {@code panelLength} until it reaches the
+ * variate, and the drop position is found by inverting it in that panel.
+ * The work of a bave is proportional to the number of panels and drops
+ * instead of the number of steps, and one random number is drawn per
+ * segment.</p>
+ *
+ * <p>The panel length has to be short enough for the dropping probability
+ * to be smooth in a panel, it does not change the distribution of drops
+ * otherwise. Unlike the stepwise partition, which drops once per step at
+ * most, the dropping probability has to be finite and non-negative on the
+ * bave, otherwise the split fails with an {@code IllegalArgumentException},
+ * for example, {@link IDroppingProbability#inverseSize(double, double, double)}
+ * is not bounded on the bave whose size gets to zero.</p>
+ */
+public class InverseTransformPartition extends Partition {
+
+    /**
+     * @param droppingProbability the dropping probability of bave.
+     * @param panelLength         the length of panel in which the dropping probability is integrated.
+     */
+    public InverseTransformPartition(IDroppingProbability droppingProbability, double panelLength) {
+        super(droppingProbability, panelLength);
+    }
+
+    public double getPanelLength() {
+        return getStepLength();
+    }
+
+    /**
+     * Split a bave into reelable segments.
+     *
+     * @param bave     the bave.
+     * @param random   the random generator.
+     * @param listener the listener receiving the segments in order of position.
+     * @return the number of segments.
+     * @throws IllegalArgumentException if the cumulative dropping probability of a panel
+     *                                  is negative, infinite or NaN.
+     */
+    @Override
+    public int split(IBave bave, SplittableRandom random, SegmentListener listener) {
+        final IDroppingProbability droppingProbability = getDroppingProbability();
+        final double panelLength = getStepLength();
+        final double baveLength = bave.getBaveLength();
+        double start = 0;
+        int segmentNum = 0;
+        double pos = 0;
+        double remaining = -Math.log1p(-random.nextDouble());
+        while (pos < baveLength) {
+            final double upper = Math.min(pos + panelLength, baveLength);
+            final double cumulative = droppingProbability.getCumulativeDroppingProbability(bave, pos, upper);
+            if (!(cumulative >= 0 && cumulative < Double.POSITIVE_INFINITY)) {
+                throw new IllegalArgumentException(String.format(
+                        "Expected {0 <= cumulative < Infinity}," +
+                                "but got {cumulative = %s,lowerPos = %s,upperPos = %s,bave = %s}.",
+                        cumulative, pos, upper, bave));
+            }
+            if (cumulative < remaining) {
+                remaining -= cumulative;
+                pos = upper;
+                continue;
+            }
+            final double end = droppingProbability.getDropPosition(bave, pos, upper, remaining);
+            if (end >= baveLength) {
+                break;
+            }
+            listener.segment(start, end);
+            segmentNum++;
+            start = end;
+            pos = end;
+            remaining = -Math.log1p(-random.nextDouble());
+        }
+        listener.segment(start, baveLength);
+        return segmentNum + 1;
+    }
+}
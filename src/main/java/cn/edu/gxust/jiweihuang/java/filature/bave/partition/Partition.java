@@ -15,5 +15,140 @@
  */
 package cn.edu.gxust.jiweihuang.java.filature.bave.partition;
 
+import cn.edu.gxust.jiweihuang.java.filature.bave.IBave;
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBaveDistribution;
+import cn.edu.gxust.jiweihuang.java.filature.cocoon.ICocoonLot;
+
+import java.util.SplittableRandom;
+
+/**
+ * <p>The class {@code Partition} is used for splitting baves into
+ * reelable segments by the continuous stepwise partition model.</p>
+ *
+ * <p>A bave is reeled from position zero in steps of {@code stepLength},
+ * and it drops in the step from {@code pos} to {@code pos + step} with the
+ * probability {@code 1 - exp(-p(pos) * step)}, where {@code p} is the
+ * dropping probability per unit length given by {@link IDroppingProbability}.
+ * A drop ends the current segment at the end of the step, the next
+ * segment begins there, and the last segment ends at the bave length.</p>
+ *
+ * <p>The segments are passed to a {@link SegmentListener} as soon as they
+ * are split, and the partition of a lot accumulates them into
+ * {@link SegmentLengthDistribution}, so that a run of millions of baves keeps
+ * no segment, and the baves sampled from a distribution are not kept either.</p>
+ *
+ * <p>The work of a bave is proportional to its length over the step length,
+ * see {@link InverseTransformPartition} for the continuous partition model,
+ * whose work is proportional to the number of drops.</p>
+ */
 public class Partition {
+
+    /**
+     * The listener of the segments of a bave.
+     */
+    @FunctionalInterface
+    public interface SegmentListener {
+        /**
+         * @param start the start position of segment on bave.
+         * @param end   the end position of segment on bave.
+         */
+        void segment(double start, double end);
+    }
+
+    private final IDroppingProbability droppingProbability;
+
+    private final double stepLength;
+
+    /**
+     * @param droppingProbability the dropping probability of bave.
+     * @param stepLength          the length of step.
+     */
+    public Partition(IDroppingProbability droppingProbability, double stepLength) {
+        if (droppingProbability == null || !(stepLength > 0)) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {droppingProbability != null,stepLength > 0}," +
+                            "but got {droppingProbability = %s,stepLength = %s}.",
+                    droppingProbability, stepLength));
+        }
+        this.droppingProbability = droppingProbability;
+        this.stepLength = stepLength;
+    }
+
+    public IDroppingProbability getDroppingProbability() {
+        return droppingProbability;
+    }
+
+    public double getStepLength() {
+        return stepLength;
+    }
+
+    /**
+     * Split a bave into reelable segments.
+     *
+     * @param bave     the bave.
+     * @param random   the random generator.
+     * @param listener the listener receiving the segments in order of position.
+     * @return the number of segments.
+     */
+    public int split(IBave bave, SplittableRandom random, SegmentListener listener) {
+        final double baveLength = bave.getBaveLength();
+        double start = 0;
+        int segmentNum = 0;
+        for (long k = 0; ; k++) {
+            final double pos = k * stepLength;
+            if (pos >= baveLength) {
+                break;
+            }
+            final double end = Math.min(pos + stepLength, baveLength);
+            if (end < baveLength) {
+                final double rate = droppingProbability.getDroppingProbability(bave, pos);
+                if (random.nextDouble() < -Math.expm1(-rate * (end - pos))) {
+                    listener.segment(start, end);
+                    segmentNum++;
+                    start = end;
+                }
+            }
+        }
+        listener.segment(start, baveLength);
+        return segmentNum + 1;
+    }
+
+    /**
+     * Partition the baves of a lot.
+     *
+     * @param lot          the lot.
+     * @param random       the random generator.
+     * @param distribution the distribution accumulating the segment lengths.
+     * @return the distribution.
+     */
+    public SegmentLengthDistribution partition(ICocoonLot lot, SplittableRandom random,
+                                               SegmentLengthDistribution distribution) {
+        final SegmentListener listener = (start, end) -> distribution.add(end - start);
+        final int size = lot.size();
+        for (int i = 0; i < size; i++) {
+            split(lot.view(i), random, listener);
+            distribution.addBave();
+        }
+        return distribution;
+    }
+
+    /**
+     * Partition the baves sampled from a bave distribution, one bave at a time.
+     *
+     * @param baveDistribution the distribution of baves.
+     * @param baveNum          the number of baves.
+     * @param random           the random generator of baves and partition.
+     * @param distribution     the distribution accumulating the segment lengths.
+     * @return the distribution.
+     */
+    public SegmentLengthDistribution partition(QVLBaveDistribution baveDistribution, long baveNum,
+                                               SplittableRandom random,
+                                               SegmentLengthDistribution distribution) {
+        final SegmentListener listener = (start, end) -> distribution.add(end - start);
+        for (long i = 0; i < baveNum; i++) {
+            split(baveDistribution.sample(random), random, listener);
+            distribution.addBave();
+        }
+        return distribution;
+    }
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.filature.bave.partition;
+
+/**
+ * <p>The class {@code SegmentLengthDistribution} is used for
+ * accumulating the distribution of the lengths of reelable segments
+ * of the baves of a lot, one length at a time, so that no segment
+ * is kept.</p>
+ *
+ * <p>The lengths are counted in {@code binNum} bins of {@code binWidth}
+ * from zero, the longer lengths are counted as overflow, and the moments
+ * are accumulated by the algorithm of Welford. Two distributions with
+ * the same bins can be merged.</p>
+ */
+public class SegmentLengthDistribution {
+
+    private final double binWidth;
+    private final long[] binCounts;
+    private long overflowCount = 0;
+
+    private long baveNum = 0;
+    private long segmentNum = 0;
+    private double mean = 0;
+    private double squareDeviationSum = 0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public SegmentLengthDistribution(double binWidth, int binNum) {
+        if (!(binWidth > 0) || binNum <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {binWidth > 0,binNum > 0},but got {binWidth = %s,binNum = %d}.",
+                    binWidth, binNum));
+        }
+        this.binWidth = binWidth;
+        this.binCounts = new long[binNum];
+    }
+
+    /**
+     * @param length the length of a segment.
+     */
+    public void add(double length) {
+        int bin = (int) (length / binWidth);
+        if (bin < binCounts.length) {
+            binCounts[bin]++;
+        } else {
+            overflowCount++;
+        }
+        segmentNum++;
+        double delta = length - mean;
+        mean += delta / segmentNum;
+        squareDeviationSum += delta * (length - mean);
+        min = Math.min(min, length);
+        max = Math.max(max, length);
+    }
+
+    /**
+     * Count a partitioned bave.
+     */
+    public void addBave() {
+        baveNum++;
+    }
+
+    /**
+     * @param other the distribution with the same bins.
+     */
+    public void merge(SegmentLengthDistribution other) {
+        if (other.binWidth != binWidth || other.binCounts.length != binCounts.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {binWidth = %s,binNum = %d},but got {binWidth = %s,binNum = %d}.",
+                    binWidth, binCounts.length, other.binWidth, other.binCounts.length));
+        }
+        if (other.segmentNum > 0) {
+            long n = segmentNum + other.segmentNum;
+            double delta = other.mean - mean;
+            squareDeviationSum += other.squareDeviationSum +
+                    delta * delta * segmentNum * other.segmentNum / n;
+            mean += delta * other.segmentNum / n;
+            segmentNum = n;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        for (int i = 0; i < binCounts.length; i++) {
+            binCounts[i] += other.binCounts[i];
+        }
+        overflowCount += other.overflowCount;
+        baveNum += other.baveNum;
+    }
+
+    public double getBinWidth() {
+        return binWidth;
+    }
+
+    public int getBinNum() {
+        return binCounts.length;
+    }
+
+    /**
+     * @param bin the index of bin.
+     * @return the number of lengths in {@code [bin * binWidth, (bin + 1) * binWidth)}.
+     */
+    public long getBinCount(int bin) {
+        return binCounts[bin];
+    }
+
+    /**
+     * @param bin the index of bin.
+     * @return the probability density of length in bin.
+     */
+    public double getDensity(int bin) {
+        return segmentNum == 0 ? Double.NaN : binCounts[bin] / (segmentNum * binWidth);
+    }
+
+    public long getOverflowCount() {
+        return overflowCount;
+    }
+
+    public long getBaveNum() {
+        return baveNum;
+    }
+
+    public long getSegmentNum() {
+        return segmentNum;
+    }
+
+    /**
+     * @return the mean number of segments of a bave.
+     */
+    public double getMeanSegmentNum() {
+        return baveNum == 0 ? Double.NaN : (double) segmentNum / baveNum;
+    }
+
+    public double getMean() {
+        return segmentNum == 0 ? Double.NaN : mean;
+    }
+
+    public double getVariance() {
+        return segmentNum > 1 ? squareDeviationSum / (segmentNum - 1) : Double.NaN;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @param p the probability, in {@code [0,1]}.
+     * @return the quantile of length, interpolated linearly in bin,
+     * or {@code Double.POSITIVE_INFINITY} if it is in the overflow.
+     */
+    public double getQuantile(double p) {
+        if (!(p >= 0 && p <= 1)) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {0 <= p <= 1},but got {p = %s}.", p));
+        }
+        if (segmentNum == 0) {
+            return Double.NaN;
+        }
+        double rank = p * segmentNum;
+        long cumulative = 0;
+        for (int i = 0; i < binCounts.length; i++) {
+            if (binCounts[i] > 0 && cumulative + binCounts[i] >= rank) {
+                return (i + (rank - cumulative) / binCounts[i]) * binWidth;
+            }
+            cumulative += binCounts[i];
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SegmentLengthDistribution{baves = %d, segments = %d, segments per bave = %.4f, " +
+                        "mean = %.4f, sd = %.4f, min = %.4f, median = %.4f, max = %.4f}",
+                baveNum, segmentNum, getMeanSegmentNum(), getMean(), Math.sqrt(getVariance()),
+                min, getQuantile(0.5), max);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.filature.bave.partition;
+
+/**
+ * <p>The class {@code TabulatedDroppingProbability} is used for
+ * caching a dropping probability depending on bave size in a table,
+ * which is looked up by interpolation instead of evaluating the
+ * exact function, for example, {@code Math.pow} of
+ * {@link IDroppingProbability#inverseSize(double, double, double)}.</p>
+ *
+ * <p>The exact function is tabulated at {@code intervalNum + 1} equally
+ * spaced sizes from {@code minSize} to {@code maxSize}, and every interval
+ * keeps the coefficients of its polynomial:</p>
+ * <ul>
+ * <li>{@code LINEAR}: the linear interpolation of the ends of interval.</li>
+ * <li>{@code CUBIC}: the cubic Hermite interpolation, the derivatives at
+ * the nodes are the central differences of the exact function.</li>
+ * </ul>
+ * <p>A lookup is a multiplication, a truncation and a polynomial of
+ * degree three at most. The sizes outside the table are evaluated by
+ * the exact function.</p>
+ *
+ * <p>The error against the exact function is measured on construction
+ * at the points dividing every interval into {@value #ERROR_SAMPLE_NUM}
+ * equal parts, which include the middle of interval, where the error of
+ * both interpolations peaks for the functions that are smooth on the
+ * scale of interval. It is an estimate of the bound, not a proof.</p>
+ *
+ * <p>It is immutable, so a table can be shared by the threads of
+ * a partition without synchronization.</p>
+ */
+public final class TabulatedDroppingProbability implements ISizeDroppingProbability {
+
+    /**
+     * The interpolation between the nodes of table.
+     */
+    public enum Interpolation {
+        LINEAR,
+        CUBIC
+    }
+
+    static final int ERROR_SAMPLE_NUM = 16;
+
+    private final ISizeDroppingProbability exact;
+    private final Interpolation interpolation;
+    private final double minSize;
+    private final double maxSize;
+    private final int intervalNum;
+    private final double inverseStep;
+    //The coefficients of polynomial in every interval, 4 per interval.
+    private final double[] coefficients;
+
+    private final double maxAbsoluteError;
+    private final double maxRelativeError;
+
+    private TabulatedDroppingProbability(ISizeDroppingProbability exact, Interpolation interpolation,
+                                         double minSize, double maxSize, int intervalNum) {
+        this.exact = exact;
+        this.interpolation = interpolation;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.intervalNum = intervalNum;
+        final double step = (maxSize - minSize) / intervalNum;
+        this.inverseStep = 1 / step;
+        final double[] values = new double[intervalNum + 1];
+        final double[] slopes = new double[intervalNum + 1];
+        final double delta = 1e-4 * step;
+        for (int i = 0; i <= intervalNum; i++) {
+            final double size = node(i, step);
+            values[i] = exact.getDroppingProbability(size);
+            if (interpolation == Interpolation.CUBIC) {
+                final double lower = Math.max(size - delta, minSize);
+                final double upper = Math.min(size + delta, maxSize);
+                slopes[i] = (exact.getDroppingProbability(upper) -
+                        exact.getDroppingProbability(lower)) / (upper - lower) * step;
+            }
+        }
+        this.coefficients = new double[4 * intervalNum];
+        for (int i = 0; i < intervalNum; i++) {
+            final double y0 = values[i];
+            final double y1 = values[i + 1];
+            final int j = 4 * i;
+            coefficients[j] = y0;
+            if (interpolation == Interpolation.LINEAR) {
+                coefficients[j + 1] = y1 - y0;
+            } else {
+                final double m0 = slopes[i];
+                final double m1 = slopes[i + 1];
+                coefficients[j + 1] = m0;
+                coefficients[j + 2] = 3 * (y1 - y0) - 2 * m0 - m1;
+                coefficients[j + 3] = 2 * (y0 - y1) + m0 + m1;
+            }
+        }
+        double absoluteError = 0;
+        double relativeError = 0;
+        for (int i = 0; i < intervalNum; i++) {
+            for (int k = 1; k < ERROR_SAMPLE_NUM; k++) {
+                final double size = minSize + (i + (double) k / ERROR_SAMPLE_NUM) * step;
+                final double expected = exact.getDroppingProbability(size);
+                final double error = Math.abs(getDroppingProbability(size) - expected);
+                absoluteError = Math.max(absoluteError, error);
+                if (expected != 0) {
+                    relativeError = Math.max(relativeError, error / Math.abs(expected));
+                }
+            }
+        }
+        this.maxAbsoluteError = absoluteError;
+        this.maxRelativeError = relativeError;
+    }
+
+    /**
+     * @param exact         the exact dropping probability.
+     * @param minSize       the minimum size of table.
+     * @param maxSize       the maximum size of table.
+     * @param intervalNum   the number of intervals of table.
+     * @param interpolation the interpolation.
+     * @return the tabulated dropping probability.
+     */
+    public static TabulatedDroppingProbability of(ISizeDroppingProbability exact,
+                                                  double minSize, double maxSize,
+                                                  int intervalNum, Interpolation interpolation) {
+        if (exact == null || interpolation == null || !(minSize < maxSize) || intervalNum <= 0 ||
+                Double.isInfinite(minSize) || Double.isInfinite(maxSize)) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {exact != null,interpolation != null,minSize < maxSize,intervalNum > 0}," +
+                            "but got {exact = %s,interpolation = %s,minSize = %s,maxSize = %s,intervalNum = %d}.",
+                    exact, interpolation, minSize, maxSize, intervalNum));
+        }
+        return new TabulatedDroppingProbability(exact, interpolation, minSize, maxSize, intervalNum);
+    }
+
+    private double node(int i, double step) {
+        return i == intervalNum ? maxSize : minSize + i * step;
+    }
+
+    @Override
+    public double getDroppingProbability(double size) {
+        final double u = (size - minSize) * inverseStep;
+        if (!(u >= 0 && u < intervalNum)) {
+            return size == maxSize ? coefficientsSum(intervalNum - 1) : exact.getDroppingProbability(size);
+        }
+        final int i = (int) u;
+        final double t = u - i;
+        final int j = i << 2;
+        final double[] c = coefficients;
+        return ((c[j + 3] * t + c[j + 2]) * t + c[j + 1]) * t + c[j];
+    }
+
+    private double coefficientsSum(int i) {
+        final int j = i << 2;
+        return coefficients[j] + coefficients[j + 1] + coefficients[j + 2] + coefficients[j + 3];
+    }
+
+    public ISizeDroppingProbability getExact() {
+        return exact;
+    }
+
+    public Interpolation getInterpolation() {
+        return interpolation;
+    }
+
+    public double getMinSize() {
+        return minSize;
+    }
+
+    public double getMaxSize() {
+        return maxSize;
+    }
+
+    public int getIntervalNum() {
+        return intervalNum;
+    }
+
+    /**
+     * @return the maximum absolute error against the exact function
+     * measured in the table.
+     */
+    public double getMaxAbsoluteError() {
+        return maxAbsoluteError;
+    }
+
+    /**
+     * @return the maximum relative error against the exact function
+     * measured in the table.
+     */
+    public double getMaxRelativeError() {
+        return maxRelativeError;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TabulatedDroppingProbability{%s, size in [%s, %s], intervals = %d, " +
+                        "max absolute error = %.3e, max relative error = %.3e}",
+                interpolation, minSize, maxSize, intervalNum, maxAbsoluteError, maxRelativeError);
+    }
+}
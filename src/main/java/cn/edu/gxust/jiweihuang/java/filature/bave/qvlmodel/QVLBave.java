@@ -18,23 +18,42 @@ package cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel;
 
 import cn.edu.gxust.jiweihuang.java.filature.bave.IBave;
 
+import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateFunction;
 import cn.edu.gxust.jiweihuang.java.math.function.univariate.*;
 import org.hipparchus.analysis.ParametricUnivariateFunction;
 import org.hipparchus.exception.MathIllegalArgumentException;
 import org.hipparchus.exception.NullArgumentException;
 import org.hipparchus.util.MathUtils;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class QVLBave implements IBave, IQuadraticVertexLogistic {
 
     private static final long serialVersionUID = 9121969971048988529L;
 
-    private static long ID_COUNTER = 0;
+    /**
+     * The number of derived coefficients of QVL function.
+     */
+    public static final int COEFFICIENT_NUM = 4;
+
+    private static final AtomicLong ID_COUNTER = new AtomicLong();
     private final long baveID;
     private final double baveLength;
     private final double initialSize;
     private final double initialTerminalSizeRatio;
     private final double maxSizePosBaveLengthRatio;
 
+    //The derived coefficients of QVL function,
+    //which are calculated once when the bave is created.
+    private final double maxSizePos;
+    private final double logisticK;
+    private final double quadraticVertexA;
+    private final double quadraticVertexLogisticD;
+
+    //The cached component functions, they are created on first use.
+    private transient IQuadraticVertex quadraticVertex;
+    private transient ILogistic logistic;
+
     public QVLBave(double baveLength, double initialSize,
                    double initialTerminalSizeRatio,
                    double maxSizePosBaveLengthRatio) {
@@ -42,7 +61,40 @@ public class QVLBave implements IBave, IQuadraticVertexLogistic {
         this.initialSize = initialSize;
         this.initialTerminalSizeRatio = initialTerminalSizeRatio;
         this.maxSizePosBaveLengthRatio = maxSizePosBaveLengthRatio;
-        this.baveID = ID_COUNTER++;
+        double[] coefficients = new double[COEFFICIENT_NUM];
+        coefficients(baveLength, initialSize, initialTerminalSizeRatio,
+                maxSizePosBaveLengthRatio, coefficients);
+        this.maxSizePos = coefficients[0];
+        this.logisticK = coefficients[1];
+        this.quadraticVertexA = coefficients[2];
+        this.quadraticVertexLogisticD = coefficients[3];
+        this.baveID = ID_COUNTER.getAndIncrement();
+    }
+
+    /**
+     * Calculate the derived coefficients of QVL function from the parameters of bave.
+     *
+     * @param coefficients the array for receiving the coefficients, in the order of
+     *                     {maxSizePos, logisticK, quadraticVertexA, quadraticVertexLogisticD}.
+     * @throws IllegalArgumentException if {@code maxSizePosBaveLengthRatio >= 1},
+     *                                  for which {@code logisticK} is not positive.
+     */
+    public static void coefficients(double baveLength, double initialSize,
+                                    double initialTerminalSizeRatio,
+                                    double maxSizePosBaveLengthRatio,
+                                    double[] coefficients) {
+        if (!(maxSizePosBaveLengthRatio < 1)) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {maxSizePosBaveLengthRatio < 1},but got {maxSizePosBaveLengthRatio = %s}.",
+                    maxSizePosBaveLengthRatio));
+        }
+        final double maxSizePos = baveLength * maxSizePosBaveLengthRatio;
+        final double logisticK = 4.0 / (baveLength * (1 - maxSizePosBaveLengthRatio));
+        coefficients[0] = maxSizePos;
+        coefficients[1] = logisticK;
+        coefficients[2] = (initialSize * (1 + Math.exp(logisticK * maxSizePos)) *
+                (1 - initialTerminalSizeRatio)) / (baveLength * baveLength);
+        coefficients[3] = initialTerminalSizeRatio * initialSize;
     }
 
     @Override
@@ -55,12 +107,38 @@ public class QVLBave implements IBave, IQuadraticVertexLogistic {
         return value(pos);
     }
 
+    @Override
+    public double getBaveSizeDerivative(double pos) {
+        return derivative(pos);
+    }
+
+    @Override
+    public void getBaveSizes(double[] pos, double[] out, int offset, int length) {
+        values(pos, out, offset, length);
+    }
+
+    /**
+     * @return the lower limit of position on bave.
+     */
+    @Override
+    public double lowerX() {
+        return .0;
+    }
+
+    /**
+     * @return the upper limit of position on bave, i.e. the bave length.
+     */
+    @Override
+    public double upperX() {
+        return baveLength;
+    }
+
     public double getInitialSize() {
         return initialSize;
     }
 
     public double getMaxSizePos() {
-        return getBaveLength() * getMaxSizePosBaveLengthRatio();
+        return maxSizePos;
     }
 
     public double getInitialTerminalSizeRatio() {
@@ -77,17 +155,27 @@ public class QVLBave implements IBave, IQuadraticVertexLogistic {
 
     @Override
     public IQuadraticVertex getQuadraticVertex() {
-        return new QuadraticVertex(getQuadraticVertexA(), getQuadraticVertexB(), getQuadraticVertexC());
+        IQuadraticVertex qv = quadraticVertex;
+        if (qv == null) {
+            qv = new QuadraticVertex(getQuadraticVertexA(), getQuadraticVertexB(), getQuadraticVertexC());
+            quadraticVertex = qv;
+        }
+        return qv;
     }
 
     @Override
     public ILogistic getLogistic() {
-        return new Logistic(getLogisticM(), getLogisticK(), getLogisticX0());
+        ILogistic l = logistic;
+        if (l == null) {
+            l = new Logistic(getLogisticM(), getLogisticK(), getLogisticX0());
+            logistic = l;
+        }
+        return l;
     }
 
     @Override
     public double getQuadraticVertexLogisticD() {
-        return getInitialTerminalSizeRatio() * getInitialSize();
+        return quadraticVertexLogisticD;
     }
 
     /**
@@ -95,7 +183,7 @@ public class QVLBave implements IBave, IQuadraticVertexLogistic {
      */
     @Override
     public double getQuadraticVertexA() {
-        return (getInitialSize() * (1 + Math.exp(getLogisticK() * getMaxSizePos())) * (1 - getInitialTerminalSizeRatio())) / Math.pow(getBaveLength(), 2.0);
+        return quadraticVertexA;
     }
 
     /**
@@ -103,7 +191,7 @@ public class QVLBave implements IBave, IQuadraticVertexLogistic {
      */
     @Override
     public double getQuadraticVertexB() {
-        return getBaveLength();
+        return baveLength;
     }
 
     /**
@@ -127,7 +215,7 @@ public class QVLBave implements IBave, IQuadraticVertexLogistic {
      */
     @Override
     public double getLogisticK() {
-        return 4.0 / (getBaveLength() * (1 - getMaxSizePosBaveLengthRatio()));
+        return logisticK;
     }
 
     /**
@@ -135,7 +223,38 @@ public class QVLBave implements IBave, IQuadraticVertexLogistic {
      */
     @Override
     public double getLogisticX0() {
-        return getMaxSizePos();
+        return maxSizePos;
+    }
+
+    /**
+     * The method {@code value(double x)} is used to get the calculated value of
+     * QVL function at independent variable {@code x}, it only reads the derived
+     * coefficients of this bave.
+     *
+     * @param x independent variable
+     * @return the calculated value of function at independent variable {@code x}.
+     */
+    @Override
+    public double value(double x) {
+        return IQuadraticVertexLogistic.value(x, quadraticVertexA, baveLength,
+                logisticK, maxSizePos, quadraticVertexLogisticD);
+    }
+
+    /**
+     * The method {@code values(double[] xs, double[] out, int offset, int length)}
+     * is used to get the calculated values of QVL function at a batch of
+     * independent variables, for instance, the sampling positions of bave.
+     *
+     * @param xs     independent variables
+     * @param out    the array for receiving the calculated values of function.
+     * @param offset the start index in {@code xs} and {@code out}.
+     * @param length the number of values to calculate.
+     */
+    @Override
+    public void values(double[] xs, double[] out, int offset, int length) {
+        IUnivariateFunction.checkValuesRange(xs, out, offset, length);
+        IQuadraticVertexLogistic.values(xs, out, offset, length, quadraticVertexA, baveLength,
+                logisticK, maxSizePos, quadraticVertexLogisticD);
     }
 
     /**
@@ -157,20 +276,40 @@ public class QVLBave implements IBave, IQuadraticVertexLogistic {
 
         @Override
         public double[] gradient(double x, double... parameters) {
+            double[] make_array = new double[4];
+            valueAndGradient(x, parameters, make_array);
+            return make_array;
+        }
+
+        /**
+         * The fused evaluation of value and gradient, the shared
+         * subexpressions (two exponentials) are calculated only once.
+         *
+         * @param x          independent variable, the position on bave.
+         * @param parameters the parameters {baveLength, initialSize,
+         *                   initialTerminalSizeRatio, maxSizePosBaveLengthRatio}.
+         * @param gradient   the buffer for receiving the four partial derivatives.
+         * @return the value of function.
+         */
+        public double valueAndGradient(double x, double[] parameters, double[] gradient) {
             validateParameters(parameters);
             double L = parameters[0];//baveLength
             double h = parameters[1];//initialSize,headSize
             double alpha = parameters[2];//initialTerminalSizeRatio
             double beta = parameters[3]; //maxSizePosBaveLengthRatio
-            double[] make_array = new double[4];
-            make_array[0] = (2 * Math.exp((4 * (x + 2 * L * beta)) / (L - L * beta)) * (1 + Math.exp(4 * beta / (-1 + beta))) * h * x * (-L + x) * (-1 + alpha) * (-2 * x + L * (1 + Math.exp((4 * (x - L * beta)) / (L - L * beta)) * (-1 + beta) + beta))) / (Math.pow(((Math.exp(-4 * beta / (-1 + beta)) + Math.exp(4 * x / (L - L * beta)))), 2) * Math.pow(L, 4) * (-1 + beta));
-            make_array[1] = ((1 + Math.exp(4 * beta / (1 - beta))) * (Math.pow(-L + x, 2)) * (1 - alpha)) / ((1 + Math.exp(-(4 * (x - L * beta)) / (L * (1 - beta)))) * Math.pow(L, 2)) + alpha;
-            make_array[2] = h - ((1 + Math.exp(4 * beta / (1 - beta))) * h * Math.pow((-L + x), 2)) / ((1 + Math.exp(-(4 * (x - L * beta)) / (L * (1 - beta)))) * Math.pow(L, 2));
-            make_array[3] = -(4 * Math.exp((4 * x + 4 * L * beta) / (L - L * beta)) * h * Math.pow(L - x, 2) *
-                    ((-1 + Math.exp(4 * x / (L - L * beta))) * L + x + Math.exp(-4 *
-                            beta / (-1 + beta)) * x) * (-1 + alpha)) / (Math.pow(
-                    (Math.exp(-4 * beta / (-1 + beta)) + Math.exp(4 * x / (L - L * beta))), 2) * Math.pow(L, 3) * Math.pow(-1 + beta, 2));
-            return make_array;
+            double e0 = Math.exp(4 * (beta / (1 - beta)));
+            double u = x / L - 1;
+            double q = u * u;//(x-L)^2/L^2
+            double s = 1 / (1 + Math.exp(-((4 * (x / L - beta)) / (1 - beta))));
+            double ds = s * (1 - s);
+            double qs = q * s;
+            double xl2 = x / (L * L);
+            double c = h * (1 - alpha) * (1 + e0);
+            gradient[0] = -c * xl2 * (2 * u * s + 4 * q * ds / (1 - beta));
+            gradient[1] = (1 - alpha) * (1 + e0) * qs + alpha;
+            gradient[2] = h - h * (1 + e0) * qs;
+            gradient[3] = 4 * h * (1 - alpha) * q * (e0 * s + (1 + e0) * ds * u) / ((1 - beta) * (1 - beta));
+            return c * qs + alpha * h;
         }
 
         /**
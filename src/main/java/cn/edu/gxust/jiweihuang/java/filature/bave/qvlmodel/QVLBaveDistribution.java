@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel;
+
+import org.hipparchus.linear.CholeskyDecomposition;
+import org.hipparchus.linear.MatrixUtils;
+import org.hipparchus.linear.RealMatrix;
+
+import java.util.Collection;
+import java.util.SplittableRandom;
+
+/**
+ * <p>The class {@code QVLBaveDistribution} is used for
+ * sampling the QVL baves of a lot.</p>
+ *
+ * <p>The parameters {baveLength, initialSize, initialTerminalSizeRatio,
+ * maxSizePosBaveLengthRatio} are transformed to the real line, the
+ * logarithm for the two positive parameters and the logit for the two
+ * ratios in (0,1), and the transformed parameters are distributed
+ * as a multivariate normal distribution, which is either given by
+ * the nominal parameters and their coefficient of variation,
+ * or estimated from the fitted parameters of a lot. So every sampled
+ * ratio lies in (0,1), as a QVL bave requires.</p>
+ *
+ * <p>It is immutable, the random generator is supplied by caller,
+ * so it can be shared by concurrent samplers.</p>
+ */
+public final class QVLBaveDistribution {
+
+    public static final int PARAMETER_NUM = 4;
+
+    //The index of the first ratio, the parameters from it on are in (0,1).
+    private static final int FIRST_RATIO = 2;
+
+    //The mean of transformed parameters.
+    private final double[] mean;
+
+    //The lower triangular factor of the covariance of transformed parameters.
+    private final double[][] covarianceL;
+
+    private QVLBaveDistribution(double[] mean, double[][] covarianceL) {
+        this.mean = mean;
+        this.covarianceL = covarianceL;
+    }
+
+    /**
+     * @return the logarithm of parameter, or the logit of parameter if it is a ratio.
+     */
+    private static double transform(int index, double parameter) {
+        return index < FIRST_RATIO ? Math.log(parameter) : Math.log(parameter / (1 - parameter));
+    }
+
+    /**
+     * @return the parameter of the transformed value.
+     */
+    private static double inverseTransform(int index, double value) {
+        return index < FIRST_RATIO ? Math.exp(value) : 1 / (1 + Math.exp(-value));
+    }
+
+    /**
+     * Create the distribution in which the parameters are independent,
+     * and their medians are the nominal parameters.
+     *
+     * @param nominal the nominal parameters.
+     * @param cv      about the coefficient of variation of parameters. It is the
+     *                standard deviation of the logarithms of the positive parameters,
+     *                the standard deviation of the logits of a ratio {@code r} is
+     *                {@code cv / (1 - r)}, which gives the same spread for small {@code cv}.
+     * @return the distribution.
+     */
+    public static QVLBaveDistribution independent(double[] nominal, double cv) {
+        checkParameters(nominal);
+        double[] mean = new double[PARAMETER_NUM];
+        double[][] l = new double[PARAMETER_NUM][PARAMETER_NUM];
+        for (int i = 0; i < PARAMETER_NUM; i++) {
+            mean[i] = transform(i, nominal[i]);
+            l[i][i] = i < FIRST_RATIO ? cv : cv / (1 - nominal[i]);
+        }
+        return new QVLBaveDistribution(mean, l);
+    }
+
+    /**
+     * Estimate the distribution from the parameters of the baves of a lot,
+     * such as the parameters of converged fits.
+     *
+     * @param parameters the parameters of baves, at least two.
+     * @return the distribution.
+     * @throws IllegalArgumentException if there are fewer than two parameters.
+     * @throws org.hipparchus.exception.MathIllegalArgumentException if the covariance
+     *                                                               of transformed parameters is singular.
+     */
+    public static QVLBaveDistribution estimate(Collection<double[]> parameters) {
+        int n = parameters.size();
+        if (n < 2) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {parameters.size() >= 2},but got {parameters.size() = %d}.", n));
+        }
+        double[] mean = new double[PARAMETER_NUM];
+        for (double[] p : parameters) {
+            checkParameters(p);
+            for (int i = 0; i < PARAMETER_NUM; i++) {
+                mean[i] += transform(i, p[i]);
+            }
+        }
+        for (int i = 0; i < PARAMETER_NUM; i++) {
+            mean[i] /= n;
+        }
+        double[][] covariance = new double[PARAMETER_NUM][PARAMETER_NUM];
+        double[] d = new double[PARAMETER_NUM];
+        for (double[] p : parameters) {
+            for (int i = 0; i < PARAMETER_NUM; i++) {
+                d[i] = transform(i, p[i]) - mean[i];
+            }
+            for (int i = 0; i < PARAMETER_NUM; i++) {
+                for (int j = 0; j <= i; j++) {
+                    covariance[i][j] += d[i] * d[j];
+                }
+            }
+        }
+        for (int i = 0; i < PARAMETER_NUM; i++) {
+            for (int j = 0; j <= i; j++) {
+                covariance[i][j] /= n - 1;
+                covariance[j][i] = covariance[i][j];
+            }
+        }
+        RealMatrix l = new CholeskyDecomposition(MatrixUtils.createRealMatrix(covariance),
+                CholeskyDecomposition.DEFAULT_RELATIVE_SYMMETRY_THRESHOLD, 0).getL();
+        return new QVLBaveDistribution(mean, l.getData());
+    }
+
+    private static void checkParameters(double[] parameters) {
+        if (parameters == null || parameters.length != PARAMETER_NUM) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {parameters.length = %d},but got {parameters.length = %s}.",
+                    PARAMETER_NUM, parameters == null ? "null" : parameters.length));
+        }
+        for (int i = 0; i < PARAMETER_NUM; i++) {
+            double p = parameters[i];
+            if (!(p > 0)) {
+                throw new IllegalArgumentException(String.format(
+                        "Expected {parameter > 0},but got {parameter = %s}.", p));
+            }
+            if (i >= FIRST_RATIO && !(p < 1)) {
+                throw new IllegalArgumentException(String.format(
+                        "Expected {ratio < 1},but got {ratio = %s}.", p));
+            }
+        }
+    }
+
+    /**
+     * Sample the parameters of a bave.
+     *
+     * @param random     the random generator.
+     * @param parameters the array to store the sampled parameters.
+     */
+    public void sample(SplittableRandom random, double[] parameters) {
+        double z0 = nextGaussian(random);
+        double z1 = nextGaussian(random);
+        double z2 = nextGaussian(random);
+        double z3 = nextGaussian(random);
+        double[] l0 = covarianceL[0];
+        double[] l1 = covarianceL[1];
+        double[] l2 = covarianceL[2];
+        double[] l3 = covarianceL[3];
+        parameters[0] = Math.exp(mean[0] + l0[0] * z0);
+        parameters[1] = Math.exp(mean[1] + l1[0] * z0 + l1[1] * z1);
+        parameters[2] = 1 / (1 + Math.exp(-(mean[2] + l2[0] * z0 + l2[1] * z1 + l2[2] * z2)));
+        parameters[3] = 1 / (1 + Math.exp(-(mean[3] + l3[0] * z0 + l3[1] * z1 + l3[2] * z2 + l3[3] * z3)));
+    }
+
+    /**
+     * Sample a bave.
+     *
+     * @param random the random generator.
+     * @return the sampled bave.
+     */
+    public QVLBave sample(SplittableRandom random) {
+        double[] p = new double[PARAMETER_NUM];
+        sample(random, p);
+        return new QVLBave(p[0], p[1], p[2], p[3]);
+    }
+
+    /**
+     * @return the median parameters, which are the inverse transforms of the means.
+     */
+    public double[] getMedian() {
+        double[] median = new double[PARAMETER_NUM];
+        for (int i = 0; i < PARAMETER_NUM; i++) {
+            median[i] = inverseTransform(i, mean[i]);
+        }
+        return median;
+    }
+
+    /**
+     * Generate a standard normal deviate by the polar method of Marsaglia,
+     * since {@code SplittableRandom} has no {@code nextGaussian()} in Java 8.
+     *
+     * @param random the random generator.
+     * @return the standard normal deviate.
+     */
+    public static double nextGaussian(SplittableRandom random) {
+        double v1;
+        double v2;
+        double s;
+        do {
+            v1 = 2 * random.nextDouble() - 1;
+            v2 = 2 * random.nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        return v1 * Math.sqrt(-2 * Math.log(s) / s);
+    }
+}
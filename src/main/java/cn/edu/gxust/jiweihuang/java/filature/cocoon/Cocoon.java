@@ -22,6 +22,7 @@ import cn.edu.gxust.jiweihuang.java.filature.filament.ReelableFilament;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>The class {@code Cocoon} is used for
@@ -35,7 +36,7 @@ import java.util.List;
  */
 public abstract class Cocoon {
 
-    private static long cocoonIdCounter = 0;
+    private static final AtomicLong ID_COUNTER = new AtomicLong();
 
     private final long cocoonID;
 
@@ -48,8 +49,7 @@ public abstract class Cocoon {
      * @since 1.0.0_build-20181115
      */
     public Cocoon() {
-        this.cocoonID = cocoonIdCounter;
-        cocoonIdCounter++;
+        this.cocoonID = ID_COUNTER.getAndIncrement();
     }
 
     public long getCocoonID() {
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.edu.gxust.jiweihuang.java.filature.cocoon;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.IBave;
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBave;
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBaveDistribution;
+import cn.edu.gxust.jiweihuang.java.math.function.univariate.IQuadraticVertexLogistic;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.SplittableRandom;
+
+/**
+ * <p>The class {@code CocoonLot} is used for storing
+ * the QVL baves of the cocoons of a lot.</p>
+ *
+ * <p>The baves are stored by columns, every parameter and every
+ * derived coefficient of QVL function is a {@code double[]} indexed
+ * by the cocoon, so a lot of millions of cocoons needs no object
+ * per cocoon, and the lot-level statistics stream through
+ * contiguous arrays. The baves are accessed by index, or by
+ * the flyweight views returned by {@link #view(int)}.</p>
+ *
+ * <p>The cocoons can only be appended, the lot is not thread-safe
+ * for appending, but it can be read concurrently once it is filled.</p>
+ */
+public class CocoonLot implements ICocoonLot, Serializable {
+
+    private static final long serialVersionUID = 2061497711330645923L;
+
+    private int size = 0;
+
+    //The parameters of QVL baves.
+    private double[] baveLength;
+    private double[] initialSize;
+    private double[] initialTerminalSizeRatio;
+    private double[] maxSizePosBaveLengthRatio;
+
+    //The derived coefficients of QVL function, as in QVLBave.
+    private double[] maxSizePos;
+    private double[] logisticK;
+    private double[] quadraticVertexA;
+    private double[] quadraticVertexLogisticD;
+
+    //The buffer for receiving the derived coefficients in appending.
+    private transient double[] coefficients;
+
+    public CocoonLot(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {initialCapacity >= 0},but got {initialCapacity = %d}.", initialCapacity));
+        }
+        this.baveLength = new double[initialCapacity];
+        this.initialSize = new double[initialCapacity];
+        this.initialTerminalSizeRatio = new double[initialCapacity];
+        this.maxSizePosBaveLengthRatio = new double[initialCapacity];
+        this.maxSizePos = new double[initialCapacity];
+        this.logisticK = new double[initialCapacity];
+        this.quadraticVertexA = new double[initialCapacity];
+        this.quadraticVertexLogisticD = new double[initialCapacity];
+    }
+
+    public CocoonLot() {
+        this(16);
+    }
+
+    /**
+     * Create a lot of sampled baves.
+     *
+     * @param distribution the distribution of baves.
+     * @param num          the number of cocoons.
+     * @param random       the random generator.
+     * @return the lot.
+     */
+    public static CocoonLot sample(QVLBaveDistribution distribution, int num, SplittableRandom random) {
+        CocoonLot lot = new CocoonLot(num);
+        double[] p = new double[QVLBaveDistribution.PARAMETER_NUM];
+        for (int i = 0; i < num; i++) {
+            distribution.sample(random, p);
+            lot.add(p[0], p[1], p[2], p[3]);
+        }
+        return lot;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, baveLength.length + (baveLength.length >> 1));
+        baveLength = Arrays.copyOf(baveLength, capacity);
+        initialSize = Arrays.copyOf(initialSize, capacity);
+        initialTerminalSizeRatio = Arrays.copyOf(initialTerminalSizeRatio, capacity);
+        maxSizePosBaveLengthRatio = Arrays.copyOf(maxSizePosBaveLengthRatio, capacity);
+        maxSizePos = Arrays.copyOf(maxSizePos, capacity);
+        logisticK = Arrays.copyOf(logisticK, capacity);
+        quadraticVertexA = Arrays.copyOf(quadraticVertexA, capacity);
+        quadraticVertexLogisticD = Arrays.copyOf(quadraticVertexLogisticD, capacity);
+    }
+
+    /**
+     * Append the bave of a cocoon.
+     *
+     * @return the index of cocoon.
+     */
+    public int add(double baveLength, double initialSize,
+                   double initialTerminalSizeRatio,
+                   double maxSizePosBaveLengthRatio) {
+        if (size == this.baveLength.length) {
+            grow();
+        }
+        int i = size;
+        this.baveLength[i] = baveLength;
+        this.initialSize[i] = initialSize;
+        this.initialTerminalSizeRatio[i] = initialTerminalSizeRatio;
+        this.maxSizePosBaveLengthRatio[i] = maxSizePosBaveLengthRatio;
+        double[] c = coefficients;
+        if (c == null) {
+            c = new double[QVLBave.COEFFICIENT_NUM];
+            coefficients = c;
+        }
+        QVLBave.coefficients(baveLength, initialSize, initialTerminalSizeRatio,
+                maxSizePosBaveLengthRatio, c);
+        this.maxSizePos[i] = c[0];
+        this.logisticK[i] = c[1];
+        this.quadraticVertexA[i] = c[2];
+        this.quadraticVertexLogisticD[i] = c[3];
+        size++;
+        return i;
+    }
+
+    public int add(QVLBave bave) {
+        return add(bave.getBaveLength(), bave.getInitialSize(),
+                bave.getInitialTerminalSizeRatio(), bave.getMaxSizePosBaveLengthRatio());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "Expected {0 <= index < %d},but got {index = %d}.", size, index));
+        }
+    }
+
+    @Override
+    public double getBaveLength(int index) {
+        checkIndex(index);
+        return baveLength[index];
+    }
+
+    public double getInitialSize(int index) {
+        checkIndex(index);
+        return initialSize[index];
+    }
+
+    public double getInitialTerminalSizeRatio(int index) {
+        checkIndex(index);
+        return initialTerminalSizeRatio[index];
+    }
+
+    public double getMaxSizePosBaveLengthRatio(int index) {
+        checkIndex(index);
+        return maxSizePosBaveLengthRatio[index];
+    }
+
+    /**
+     * @param index the index of cocoon.
+     * @param pos   the position on bave.
+     * @return the size of bave at position, as {@link QVLBave#getBaveSize(double)}.
+     */
+    @Override
+    public double getBaveSize(int index, double pos) {
+        checkIndex(index);
+        return IQuadraticVertexLogistic.value(pos, quadraticVertexA[index], baveLength[index],
+                logisticK[index], maxSizePos[index], quadraticVertexLogisticD[index]);
+    }
+
+    /**
+     * @param index the index of cocoon.
+     * @return the integral of bave size over the whole bave, in closed form.
+     */
+    public double getBaveSizeIntegral(int index) {
+        checkIndex(index);
+        return integral(index);
+    }
+
+    private double integral(int i) {
+        final double a = quadraticVertexA[i];
+        final double b = baveLength[i];
+        final double k = logisticK[i];
+        final double x0 = maxSizePos[i];
+        final double d = quadraticVertexLogisticD[i];
+        return IQuadraticVertexLogistic.integrate(b, a, b, 0, 1, k, x0, d) -
+                IQuadraticVertexLogistic.integrate(0, a, b, 0, 1, k, x0, d);
+    }
+
+    /**
+     * @param index the index of cocoon.
+     * @return the mean size of bave over its length.
+     */
+    public double getMeanBaveSize(int index) {
+        return getBaveSizeIntegral(index) / baveLength[index];
+    }
+
+    /**
+     * @param index the index of cocoon.
+     * @return a new {@code QVLBave} with the parameters of bave.
+     */
+    public QVLBave getBave(int index) {
+        checkIndex(index);
+        return new QVLBave(baveLength[index], initialSize[index],
+                initialTerminalSizeRatio[index], maxSizePosBaveLengthRatio[index]);
+    }
+
+    /**
+     * @param index the index of cocoon.
+     * @return the flyweight view of bave, which reads the columns of this lot.
+     */
+    @Override
+    public IBave view(int index) {
+        checkIndex(index);
+        return new BaveView(this, index);
+    }
+
+    /**
+     * @param parameterIndex the index of parameter, in the order of
+     *                       {baveLength, initialSize, initialTerminalSizeRatio,
+     *                       maxSizePosBaveLengthRatio}.
+     * @return the statistics of parameter over this lot.
+     */
+    public DoubleSummaryStatistics getStatistics(int parameterIndex) {
+        double[] column;
+        switch (parameterIndex) {
+            case 0:
+                column = baveLength;
+                break;
+            case 1:
+                column = initialSize;
+                break;
+            case 2:
+                column = initialTerminalSizeRatio;
+                break;
+            case 3:
+                column = maxSizePosBaveLengthRatio;
+                break;
+            default:
+                throw new IndexOutOfBoundsException(String.format(
+                        "Expected {0 <= parameterIndex < %d},but got {parameterIndex = %d}.",
+                        QVLBaveDistribution.PARAMETER_NUM, parameterIndex));
+        }
+        DoubleSummaryStatistics statistics = new DoubleSummaryStatistics();
+        for (int i = 0; i < size; i++) {
+            statistics.accept(column[i]);
+        }
+        return statistics;
+    }
+
+    /**
+     * @return the total length of the baves of this lot.
+     */
+    public double getTotalBaveLength() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += baveLength[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return the mean size of the baves of this lot weighted by length,
+     * which is the mean size of the silk reeled from this lot.
+     */
+    public double getMeanBaveSize() {
+        double integral = 0;
+        double length = 0;
+        for (int i = 0; i < size; i++) {
+            integral += integral(i);
+            length += baveLength[i];
+        }
+        return integral / length;
+    }
+
+    /**
+     * The flyweight view of a bave of lot.
+     */
+    private static final class BaveView implements IBave {
+
+        private static final long serialVersionUID = -6216713524196441813L;
+
+        private final CocoonLot lot;
+        private final int index;
+
+        BaveView(CocoonLot lot, int index) {
+            this.lot = lot;
+            this.index = index;
+        }
+
+        @Override
+        public double getBaveLength() {
+            return lot.baveLength[index];
+        }
+
+        @Override
+        public double getBaveSize(double pos) {
+            final CocoonLot l = lot;
+            final int i = index;
+            return IQuadraticVertexLogistic.value(pos, l.quadraticVertexA[i], l.baveLength[i],
+                    l.logisticK[i], l.maxSizePos[i], l.quadraticVertexLogisticD[i]);
+        }
+
+        @Override
+        public double getBaveSizeDerivative(double pos) {
+            final CocoonLot l = lot;
+            final int i = index;
+            return IQuadraticVertexLogistic.derivative(pos, l.quadraticVertexA[i], l.baveLength[i],
+                    0, 1, l.logisticK[i], l.maxSizePos[i]);
+        }
+
+        @Override
+        public void getBaveSizes(double[] pos, double[] out, int offset, int length) {
+            final CocoonLot l = lot;
+            final int i = index;
+            IQuadraticVertexLogistic.values(pos, out, offset, length, l.quadraticVertexA[i], l.baveLength[i],
+                    l.logisticK[i], l.maxSizePos[i], l.quadraticVertexLogisticD[i]);
+        }
+
+        @Override
+        public String toString() {
+            return "CocoonLot.BaveView{index=" + index + "}";
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.edu.gxust.jiweihuang.java.filature.cocoon;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.IBave;
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBave;
+import cn.edu.gxust.jiweihuang.java.math.function.univariate.IQuadraticVertexLogistic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>The class {@code CocoonLotFile} is used for reading
+ * a binary lot file, which is mapped into memory.</p>
+ *
+ * <p>The file is composed of a header of {@code HEADER_SIZE} bytes and
+ * a fixed-width record for every cocoon, all in little-endian:</p>
+ * <pre>
+ * header: long magic, int version, int observationCapacity, long cocoonNum, reserved.
+ * record: long cocoonID,
+ *         double baveLength, initialSize, initialTerminalSizeRatio, maxSizePosBaveLengthRatio,
+ *         double maxSizePos, logisticK, quadraticVertexA, quadraticVertexLogisticD,
+ *         int observationNum, int reserved,
+ *         observationCapacity * (double position, double size).
+ * </pre>
+ *
+ * <p>The records are mapped read-only in chunks of whole records below
+ * 1 GiB, since a {@code MappedByteBuffer} is indexed by {@code int}.
+ * Opening a file only maps it, the pages are loaded by the operating
+ * system when they are read and are shared by all processes mapping
+ * the same file. The baves are served by the views returned by
+ * {@link #view(int)}, which read the mapped records without copying.
+ * A file is written by {@link CocoonLotFileWriter}.</p>
+ *
+ * <p>The reading methods are thread-safe.</p>
+ */
+public class CocoonLotFile implements ICocoonLot, Closeable {
+
+    public static final long MAGIC = 0x51564C4C4F543031L;//"QVLLOT01"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+
+    //The offsets of fields in record.
+    static final int COCOON_ID = 0;
+    static final int BAVE_LENGTH = 8;
+    static final int INITIAL_SIZE = 16;
+    static final int INITIAL_TERMINAL_SIZE_RATIO = 24;
+    static final int MAX_SIZE_POS_BAVE_LENGTH_RATIO = 32;
+    static final int MAX_SIZE_POS = 40;
+    static final int LOGISTIC_K = 48;
+    static final int QUADRATIC_VERTEX_A = 56;
+    static final int QUADRATIC_VERTEX_LOGISTIC_D = 64;
+    static final int OBSERVATION_NUM = 72;
+    static final int OBSERVATIONS = 80;
+
+    private static final int MAX_CHUNK_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final int observationCapacity;
+    private final int recordSize;
+    private final int cocoonNum;
+    private final int recordsPerChunk;
+    private final MappedByteBuffer[] chunks;
+
+    private CocoonLotFile(FileChannel channel, int observationCapacity, int cocoonNum) throws IOException {
+        this.channel = channel;
+        this.observationCapacity = observationCapacity;
+        this.recordSize = recordSize(observationCapacity);
+        this.cocoonNum = cocoonNum;
+        this.recordsPerChunk = Math.max(1, MAX_CHUNK_SIZE / recordSize);
+        int chunkNum = (cocoonNum + recordsPerChunk - 1) / recordsPerChunk;
+        this.chunks = new MappedByteBuffer[chunkNum];
+        for (int c = 0; c < chunkNum; c++) {
+            long first = (long) c * recordsPerChunk;
+            long num = Math.min(recordsPerChunk, cocoonNum - first);
+            MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE + first * recordSize, num * recordSize);
+            chunk.order(ByteOrder.LITTLE_ENDIAN);
+            this.chunks[c] = chunk;
+        }
+    }
+
+    /**
+     * @param observationCapacity the maximum number of observations of a record.
+     * @return the size of record in bytes.
+     */
+    public static int recordSize(int observationCapacity) {
+        return OBSERVATIONS + 16 * observationCapacity;
+    }
+
+    /**
+     * Open a lot file.
+     *
+     * @param path the path of lot file.
+     * @return the opened lot file.
+     * @throws IOException if the file can not be read, or it is not a valid lot file.
+     */
+    public static CocoonLotFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Expected {a lot file},but got {a file shorter than its header}.");
+                }
+            }
+            long magic = header.getLong(0);
+            int version = header.getInt(8);
+            int observationCapacity = header.getInt(12);
+            long cocoonNum = header.getLong(16);
+            if (magic != MAGIC || version != VERSION) {
+                throw new IOException(String.format(
+                        "Expected {magic = %x,version = %d},but got {magic = %x,version = %d}.",
+                        MAGIC, VERSION, magic, version));
+            }
+            if (observationCapacity < 0 || cocoonNum < 0 || cocoonNum > Integer.MAX_VALUE) {
+                throw new IOException(String.format(
+                        "Expected {valid header},but got {observationCapacity = %d,cocoonNum = %d}.",
+                        observationCapacity, cocoonNum));
+            }
+            long expectedSize = HEADER_SIZE + cocoonNum * recordSize(observationCapacity);
+            if (channel.size() < expectedSize) {
+                throw new IOException(String.format(
+                        "Expected {file size >= %d},but got {file size = %d}.", expectedSize, channel.size()));
+            }
+            return new CocoonLotFile(channel, observationCapacity, (int) cocoonNum);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private ByteBuffer chunk(int index) {
+        if (index < 0 || index >= cocoonNum) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "Expected {0 <= index < %d},but got {index = %d}.", cocoonNum, index));
+        }
+        return chunks[index / recordsPerChunk];
+    }
+
+    private int offset(int index) {
+        return (index % recordsPerChunk) * recordSize;
+    }
+
+    @Override
+    public int size() {
+        return cocoonNum;
+    }
+
+    public int getObservationCapacity() {
+        return observationCapacity;
+    }
+
+    public long getCocoonID(int index) {
+        return chunk(index).getLong(offset(index) + COCOON_ID);
+    }
+
+    @Override
+    public double getBaveLength(int index) {
+        return chunk(index).getDouble(offset(index) + BAVE_LENGTH);
+    }
+
+    public double getInitialSize(int index) {
+        return chunk(index).getDouble(offset(index) + INITIAL_SIZE);
+    }
+
+    public double getInitialTerminalSizeRatio(int index) {
+        return chunk(index).getDouble(offset(index) + INITIAL_TERMINAL_SIZE_RATIO);
+    }
+
+    public double getMaxSizePosBaveLengthRatio(int index) {
+        return chunk(index).getDouble(offset(index) + MAX_SIZE_POS_BAVE_LENGTH_RATIO);
+    }
+
+    @Override
+    public double getBaveSize(int index, double pos) {
+        return baveSize(chunk(index), offset(index), pos);
+    }
+
+    private static double baveSize(ByteBuffer chunk, int offset, double pos) {
+        return IQuadraticVertexLogistic.value(pos, chunk.getDouble(offset + QUADRATIC_VERTEX_A),
+                chunk.getDouble(offset + BAVE_LENGTH), chunk.getDouble(offset + LOGISTIC_K),
+                chunk.getDouble(offset + MAX_SIZE_POS), chunk.getDouble(offset + QUADRATIC_VERTEX_LOGISTIC_D));
+    }
+
+    public int getObservationNum(int index) {
+        return chunk(index).getInt(offset(index) + OBSERVATION_NUM);
+    }
+
+    /**
+     * Copy the observations of a cocoon.
+     *
+     * @param index     the index of cocoon.
+     * @param positions the array for receiving the positions, of at least
+     *                  {@code getObservationNum(index)} elements.
+     * @param sizes     the array for receiving the sizes, of at least
+     *                  {@code getObservationNum(index)} elements.
+     * @return the number of observations.
+     */
+    public int getObservations(int index, double[] positions, double[] sizes) {
+        ByteBuffer chunk = chunk(index);
+        int offset = offset(index);
+        int num = chunk.getInt(offset + OBSERVATION_NUM);
+        for (int j = 0, p = offset + OBSERVATIONS; j < num; j++, p += 16) {
+            positions[j] = chunk.getDouble(p);
+            sizes[j] = chunk.getDouble(p + 8);
+        }
+        return num;
+    }
+
+    /**
+     * @param index the index of cocoon.
+     * @return a new {@code QVLBave} with the parameters of record.
+     */
+    public QVLBave getBave(int index) {
+        ByteBuffer chunk = chunk(index);
+        int offset = offset(index);
+        return new QVLBave(chunk.getDouble(offset + BAVE_LENGTH),
+                chunk.getDouble(offset + INITIAL_SIZE),
+                chunk.getDouble(offset + INITIAL_TERMINAL_SIZE_RATIO),
+                chunk.getDouble(offset + MAX_SIZE_POS_BAVE_LENGTH_RATIO));
+    }
+
+    @Override
+    public IBave view(int index) {
+        return new MappedBave(chunk(index), offset(index));
+    }
+
+    /**
+     * Close the channel of file. The mappings are released when
+     * they are garbage collected, so the views stay readable.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * The view of a bave, which reads the mapped record.
+     * The mapping can not be serialized, so a view is
+     * serialized as a {@code QVLBave} copy of its record.
+     */
+    private static final class MappedBave implements IBave {
+
+        private static final long serialVersionUID = 3797520418924581716L;
+
+        private final transient ByteBuffer chunk;
+        private final int offset;
+
+        MappedBave(ByteBuffer chunk, int offset) {
+            this.chunk = chunk;
+            this.offset = offset;
+        }
+
+        @Override
+        public double getBaveLength() {
+            return chunk.getDouble(offset + BAVE_LENGTH);
+        }
+
+        @Override
+        public double getBaveSize(double pos) {
+            return baveSize(chunk, offset, pos);
+        }
+
+        @Override
+        public double getBaveSizeDerivative(double pos) {
+            return IQuadraticVertexLogistic.derivative(pos,
+                    chunk.getDouble(offset + QUADRATIC_VERTEX_A), chunk.getDouble(offset + BAVE_LENGTH),
+                    0, 1, chunk.getDouble(offset + LOGISTIC_K), chunk.getDouble(offset + MAX_SIZE_POS));
+        }
+
+        @Override
+        public void getBaveSizes(double[] pos, double[] out, int from, int length) {
+            IQuadraticVertexLogistic.values(pos, out, from, length,
+                    chunk.getDouble(offset + QUADRATIC_VERTEX_A), chunk.getDouble(offset + BAVE_LENGTH),
+                    chunk.getDouble(offset + LOGISTIC_K), chunk.getDouble(offset + MAX_SIZE_POS),
+                    chunk.getDouble(offset + QUADRATIC_VERTEX_LOGISTIC_D));
+        }
+
+        private Object writeReplace() {
+            return new QVLBave(chunk.getDouble(offset + BAVE_LENGTH),
+                    chunk.getDouble(offset + INITIAL_SIZE),
+                    chunk.getDouble(offset + INITIAL_TERMINAL_SIZE_RATIO),
+                    chunk.getDouble(offset + MAX_SIZE_POS_BAVE_LENGTH_RATIO));
+        }
+
+        @Override
+        public String toString() {
+            return "CocoonLotFile.MappedBave{cocoonID=" + chunk.getLong(offset + COCOON_ID) + "}";
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.edu.gxust.jiweihuang.java.filature.cocoon;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBave;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static cn.edu.gxust.jiweihuang.java.filature.cocoon.CocoonLotFile.*;
+
+/**
+ * <p>The class {@code CocoonLotFileWriter} is used for writing
+ * a binary lot file, whose format is described in {@link CocoonLotFile}.</p>
+ *
+ * <p>The records are appended sequentially through a buffer,
+ * the number of cocoons is written to the header when it is closed.</p>
+ */
+public class CocoonLotFileWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final int observationCapacity;
+    private final int recordSize;
+    private final ByteBuffer buffer;
+    private long cocoonNum = 0;
+    private boolean closed = false;
+
+    /**
+     * Create a lot file, the existing file is truncated.
+     *
+     * @param path                the path of lot file.
+     * @param observationCapacity the maximum number of observations of a cocoon.
+     * @throws IOException if the file can not be written.
+     */
+    public CocoonLotFileWriter(Path path, int observationCapacity) throws IOException {
+        if (observationCapacity < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {observationCapacity >= 0},but got {observationCapacity = %d}.",
+                    observationCapacity));
+        }
+        this.observationCapacity = observationCapacity;
+        this.recordSize = recordSize(observationCapacity);
+        this.buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, recordSize))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer.put(new byte[HEADER_SIZE]);
+    }
+
+    /**
+     * Append a cocoon without observations.
+     */
+    public void append(long cocoonID, QVLBave bave) throws IOException {
+        append(cocoonID, bave, null, null, 0);
+    }
+
+    /**
+     * Append a cocoon.
+     *
+     * @param cocoonID       the identifier of cocoon.
+     * @param bave           the bave of cocoon, such as the fitted bave.
+     * @param positions      the positions of observations.
+     * @param sizes          the sizes of observations.
+     * @param observationNum the number of observations.
+     * @throws IOException if the file can not be written.
+     */
+    public void append(long cocoonID, QVLBave bave, double[] positions,
+                       double[] sizes, int observationNum) throws IOException {
+        if (observationNum < 0 || observationNum > observationCapacity) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {0 <= observationNum <= %d},but got {observationNum = %d}.",
+                    observationCapacity, observationNum));
+        }
+        if (buffer.remaining() < recordSize) {
+            flush();
+        }
+        int offset = buffer.position();
+        buffer.putLong(offset + COCOON_ID, cocoonID);
+        buffer.putDouble(offset + BAVE_LENGTH, bave.getBaveLength());
+        buffer.putDouble(offset + INITIAL_SIZE, bave.getInitialSize());
+        buffer.putDouble(offset + INITIAL_TERMINAL_SIZE_RATIO, bave.getInitialTerminalSizeRatio());
+        buffer.putDouble(offset + MAX_SIZE_POS_BAVE_LENGTH_RATIO, bave.getMaxSizePosBaveLengthRatio());
+        buffer.putDouble(offset + MAX_SIZE_POS, bave.getMaxSizePos());
+        buffer.putDouble(offset + LOGISTIC_K, bave.getLogisticK());
+        buffer.putDouble(offset + QUADRATIC_VERTEX_A, bave.getQuadraticVertexA());
+        buffer.putDouble(offset + QUADRATIC_VERTEX_LOGISTIC_D, bave.getQuadraticVertexLogisticD());
+        buffer.putInt(offset + OBSERVATION_NUM, observationNum);
+        buffer.putInt(offset + OBSERVATION_NUM + 4, 0);
+        int p = offset + OBSERVATIONS;
+        for (int j = 0; j < observationNum; j++, p += 16) {
+            buffer.putDouble(p, positions[j]);
+            buffer.putDouble(p + 8, sizes[j]);
+        }
+        for (; p < offset + recordSize; p += 8) {
+            buffer.putLong(p, 0L);
+        }
+        buffer.position(offset + recordSize);
+        cocoonNum++;
+    }
+
+    /**
+     * Append the cocoons of a lot, the identifiers are their indexes.
+     */
+    public void append(CocoonLot lot) throws IOException {
+        for (int i = 0; i < lot.size(); i++) {
+            append(i, lot.getBave(i));
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public long getCocoonNum() {
+        return cocoonNum;
+    }
+
+    /**
+     * Flush the records, write the header and close the file.
+     * If the writer is already closed, then invoking this method has no effect.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(0, MAGIC);
+            header.putInt(8, VERSION);
+            header.putInt(12, observationCapacity);
+            header.putLong(16, cocoonNum);
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.edu.gxust.jiweihuang.java.filature.cocoon;
+
+import cn.edu.gxust.jiweihuang.java.filature.bave.IBave;
+
+/**
+ * <p>The interface {@code ICocoonLot} is used for
+ * representing the baves of the cocoons of a lot,
+ * which are accessed by the index of cocoon.</p>
+ */
+public interface ICocoonLot {
+
+    /**
+     * @return the number of cocoons in lot.
+     */
+    int size();
+
+    double getBaveLength(int index);
+
+    double getBaveSize(int index, double pos);
+
+    /**
+     * @param index the index of cocoon.
+     * @return the view of bave, which reads the storage of lot without copying.
+     */
+    IBave view(int index);
+}
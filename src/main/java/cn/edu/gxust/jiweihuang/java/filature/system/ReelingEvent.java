@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.filature.system;
+
+import cn.edu.gxust.jiweihuang.java.filature.cocoon.Cocoon;
+import cn.edu.gxust.jiweihuang.java.filature.system.entity.CocoonSupplier;
+import cn.edu.gxust.jiweihuang.java.filature.system.entity.ReelingThread;
+
+/**
+ * <p>The class {@code ReelingEvent} is used for
+ * representing a timestamped event of reeling system.</p>
+ *
+ * <p>The events are ordered by time, and the events with
+ * the same time are ordered by the sequence in which they
+ * were scheduled, so the simulation is deterministic.</p>
+ */
+public final class ReelingEvent implements Comparable<ReelingEvent> {
+
+    /**
+     * The type of reeling event.
+     */
+    public enum Type {
+        /**
+         * The bave of a cocoon is used up, and the cocoon
+         * drops from its reeling thread.
+         */
+        COCOON_END_DROPPING,
+        /**
+         * A cocoon from the cocoon supplier is attached to a reeling thread.
+         */
+        COCOON_ADDITION,
+        /**
+         * The size of a reeling thread is checked.
+         */
+        SIZE_CHECK,
+        /**
+         * The cocoons are added to a cocoon supplier.
+         */
+        SUPPLIER_REFILL
+    }
+
+    private final Type type;
+    private final double time;
+    private final ReelingThread reelingThread;
+    private final CocoonSupplier cocoonSupplier;
+    private final Cocoon cocoon;
+    private long sequence;
+
+    private ReelingEvent(Type type, double time, ReelingThread reelingThread,
+                         CocoonSupplier cocoonSupplier, Cocoon cocoon) {
+        this.type = type;
+        this.time = time;
+        this.reelingThread = reelingThread;
+        this.cocoonSupplier = cocoonSupplier;
+        this.cocoon = cocoon;
+    }
+
+    public static ReelingEvent cocoonEndDropping(double time, ReelingThread reelingThread, Cocoon cocoon) {
+        return new ReelingEvent(Type.COCOON_END_DROPPING, time, reelingThread, null, cocoon);
+    }
+
+    public static ReelingEvent cocoonAddition(double time, ReelingThread reelingThread) {
+        return new ReelingEvent(Type.COCOON_ADDITION, time, reelingThread, null, null);
+    }
+
+    public static ReelingEvent sizeCheck(double time, ReelingThread reelingThread) {
+        return new ReelingEvent(Type.SIZE_CHECK, time, reelingThread, null, null);
+    }
+
+    public static ReelingEvent supplierRefill(double time, CocoonSupplier cocoonSupplier) {
+        return new ReelingEvent(Type.SUPPLIER_REFILL, time, null, cocoonSupplier, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * @return the reeling thread of event, or null for {@code SUPPLIER_REFILL}.
+     */
+    public ReelingThread getReelingThread() {
+        return reelingThread;
+    }
+
+    /**
+     * @return the cocoon supplier of event, only for {@code SUPPLIER_REFILL}.
+     */
+    public CocoonSupplier getCocoonSupplier() {
+        return cocoonSupplier;
+    }
+
+    /**
+     * @return the dropping cocoon, only for {@code COCOON_END_DROPPING}.
+     */
+    public Cocoon getCocoon() {
+        return cocoon;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(ReelingEvent other) {
+        int c = Double.compare(time, other.time);
+        return c != 0 ? c : Long.compare(sequence, other.sequence);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReelingEvent{type=%s,time=%s,sequence=%d}", type, time, sequence);
+    }
+}
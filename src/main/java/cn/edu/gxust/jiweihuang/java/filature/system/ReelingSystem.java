@@ -15,43 +15,443 @@
  */
 package cn.edu.gxust.jiweihuang.java.filature.system;
 
+import cn.edu.gxust.jiweihuang.java.filature.cocoon.Cocoon;
+import cn.edu.gxust.jiweihuang.java.filature.system.entity.CocoonSupplier;
 import cn.edu.gxust.jiweihuang.java.filature.system.entity.CocoonSupplierManager;
+import cn.edu.gxust.jiweihuang.java.filature.system.entity.ReelingThread;
 import cn.edu.gxust.jiweihuang.java.filature.system.entity.ReelingThreadsManager;
+import cn.edu.gxust.jiweihuang.java.metrics.Counter;
+import cn.edu.gxust.jiweihuang.java.metrics.Histogram;
+import cn.edu.gxust.jiweihuang.java.metrics.Metrics;
 
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+/**
+ * <p>The class {@code ReelingSystem} is used for
+ * simulating a reeling machine.</p>
+ *
+ * <p>The simulation is discrete-event: the reeling threads and
+ * the cocoon suppliers interact only by the events scheduled
+ * on {@code ReelingTimer}, which are:</p>
+ * <ul>
+ * <li>{@code SIZE_CHECK}: the size of reeling thread is checked periodically,
+ * or at its predicted crossing of target size if the size controller is
+ * predictive, a cocoon addition is requested if it is below the target size.</li>
+ * <li>{@code COCOON_ADDITION}: a cocoon of the cocoon supplier is attached
+ * to the reeling thread, and its end dropping is scheduled.</li>
+ * <li>{@code COCOON_END_DROPPING}: the bave of cocoon is used up,
+ * and the cocoon is detached.</li>
+ * <li>{@code SUPPLIER_REFILL}: the cocoons are added to cocoon supplier periodically.</li>
+ * </ul>
+ *
+ * <p>With a predictive size controller, the crossing is predicted again
+ * whenever the cocoons of reeling thread change, up to the next end dropping,
+ * and a size check whose time is not the latest prediction is ignored.
+ * A starved cocoon addition is retried after {@code sizeCheckInterval}.
+ * The size checks of a predictive size controller are not recorded, since
+ * they are taken at the crossings, where the size is below the target size
+ * by construction; the sizes are recorded every {@code sizeCheckInterval}
+ * from the size profile instead, see {@link ReelingThread#recordSizes(double)},
+ * so the size statistics of the report are comparable to periodic size checks.</p>
+ *
+ * <p>A cocoon supplier and the reeling threads it supplies form a group,
+ * which does not interact with other groups between supplier refills,
+ * so every group has its own {@code ReelingTimer}, and the groups are
+ * simulated in parallel. The supplier refills, which draw on the cocoon
+ * store of reeling system, are the synchronization points: they are
+ * scheduled on the timer of reeling system, all groups are advanced
+ * to the time of next refill before it is processed. The groups do not depend on the number of
+ * worker threads, so the result is deterministic for a given seed.</p>
+ *
+ * <p>If {@code Metrics} is enabled, the processed events, the wall time
+ * of run and of every synchronization step, and the cocoon additions
+ * starved by an empty cocoon supplier are recorded to it.</p>
+ */
 public class ReelingSystem {
 
+    private static final Counter EVENTS = Metrics.counter("reeling.events");
+    private static final Counter WALL_NANOS = Metrics.counter("reeling.wallNanos");
+    private static final Counter STOCK_OUTS = Metrics.counter("reeling.supplierStockOuts");
+    private static final Histogram SYNC_STEP_NANOS = Metrics.histogram("reeling.syncStepNanos");
+
     private final ReelingSystemParameters parameters;
 
     private final ReelingThreadsManager reelingThreadsManager;
     private final CocoonSupplierManager cocoonSupplierManager;
+    //The timer of supplier refills.
     private final ReelingTimer reelingTimer;
+    //The timers of groups, indexed by the identifier of cocoon supplier.
+    private final ReelingTimer[] groupTimers;
+
+    //The master random generator, from which the random
+    //generators of cocoon suppliers and reeling threads are split.
+    private final SplittableRandom masterRandom;
+
+    private boolean initialized = false;
+
+    private long wallTimeNanos = 0;
 
     public ReelingSystem(final ReelingSystemParameters parameters) {
         this.parameters = parameters;
-        this.reelingThreadsManager = new ReelingThreadsManager(this);
+        this.masterRandom = new SplittableRandom(parameters.getSeed());
         this.cocoonSupplierManager = new CocoonSupplierManager(this);
+        this.reelingThreadsManager = new ReelingThreadsManager(this);
         this.reelingTimer = new ReelingTimer(this);
+        this.groupTimers = new ReelingTimer[getCocoonSupplierNum()];
+        for (int i = 0; i < this.groupTimers.length; i++) {
+            this.groupTimers[i] = new ReelingTimer(this);
+        }
     }
 
-    public void init() {
+    /**
+     * Split a new random generator from the master random generator,
+     * the generators are split in the order of creation of entities,
+     * so every entity gets the same stream for a given seed.
+     * It must not be called concurrently.
+     *
+     * @return the new random generator.
+     */
+    public SplittableRandom splitRandom() {
+        return masterRandom.split();
+    }
+
+    private ReelingTimer getGroupTimer(ReelingThread reelingThread) {
+        return groupTimers[reelingThread.getCocoonSupplier().getCocoonSupplierID()];
+    }
 
+    /**
+     * Initialize the state at the beginning of shift: every reeling thread
+     * is filled up to the target size with cocoons at uniformly random reeling
+     * positions, and the first size checks and supplier refills are scheduled.
+     */
+    public void init() {
+        if (initialized) {
+            return;
+        }
+        double sizeCheckInterval = parameters.getSizeCheckInterval();
+        double reelingSpeed = parameters.getReelingSpeed();
+        for (ReelingThread reelingThread : reelingThreadsManager.getReelingThreads()) {
+            ReelingTimer groupTimer = getGroupTimer(reelingThread);
+            while (reelingThread.getSizeController().isCocoonNeeded(reelingThread.getSize(0))) {
+                Cocoon cocoon = cocoonSupplierManager.createCocoon(reelingThread.getRandom());
+                double attachTime = -reelingThread.getRandom().nextDouble() *
+                        cocoon.getBave().getBaveLength() / reelingSpeed;
+                groupTimer.schedule(ReelingEvent.cocoonEndDropping(
+                        reelingThread.attach(cocoon, attachTime), reelingThread, cocoon));
+            }
+            double firstCheckTime = reelingThread.getRandom().nextDouble() * sizeCheckInterval;
+            if (reelingThread.getSizeController().isPredictive()) {
+                reelingThread.startRecordingSizes(firstCheckTime, sizeCheckInterval);
+                predictSizeCheck(groupTimer, reelingThread, 0);
+            } else {
+                groupTimer.schedule(ReelingEvent.sizeCheck(firstCheckTime, reelingThread));
+            }
+        }
+        for (CocoonSupplier cocoonSupplier : cocoonSupplierManager.getCocoonSuppliers()) {
+            reelingTimer.schedule(ReelingEvent.supplierRefill(
+                    parameters.getSupplierRefillInterval(), cocoonSupplier));
+        }
+        initialized = true;
     }
 
+    /**
+     * Simulate a shift, and print the report of run.
+     */
     public void start() {
+        run();
+        System.out.println(getReport());
+    }
+
+    /**
+     * Simulate a shift.
+     */
+    public void run() {
+        init();
+        long begin = System.nanoTime();
+        long beginEventNum = Metrics.ENABLED ? getProcessedEventNum() : 0;
+        ForkJoinPool pool = parameters.getParallelism() > 1 ?
+                new ForkJoinPool(parameters.getParallelism()) : null;
+        try {
+            double shiftDuration = parameters.getShiftDuration();
+            double syncTime;
+            while ((syncTime = reelingTimer.getNextEventTime()) <= shiftDuration) {
+                long stepBegin = Metrics.ENABLED ? System.nanoTime() : 0;
+                advanceGroups(pool, syncTime);
+                reelingTimer.advance(syncTime);
+                if (Metrics.ENABLED) {
+                    SYNC_STEP_NANOS.record(System.nanoTime() - stepBegin);
+                }
+            }
+            advanceGroups(pool, shiftDuration);
+            reelingTimer.advance(shiftDuration);
+            for (ReelingThread reelingThread : reelingThreadsManager.getReelingThreads()) {
+                if (reelingThread.getSizeController().isPredictive()) {
+                    //The periodic size checks at the end of shift are included.
+                    reelingThread.recordSizes(Math.nextUp(shiftDuration));
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        wallTimeNanos += elapsed;
+        if (Metrics.ENABLED) {
+            EVENTS.add(getProcessedEventNum() - beginEventNum);
+            WALL_NANOS.add(elapsed);
+        }
+    }
+
+    private void advanceGroups(ForkJoinPool pool, double endTime) {
+        if (pool == null) {
+            for (ReelingTimer groupTimer : groupTimers) {
+                groupTimer.advance(endTime);
+            }
+        } else {
+            pool.invoke(new AdvanceTask(groupTimers, 0, groupTimers.length, endTime));
+        }
+    }
+
+    /**
+     * Handle an event, it is called by {@code ReelingTimer}
+     * at the time of event. The events of different groups are
+     * handled concurrently.
+     *
+     * @param timer the timer on which the event was scheduled,
+     *              the following events are scheduled on it.
+     * @param event the event to be handled.
+     */
+    void handle(ReelingTimer timer, ReelingEvent event) {
+        double time = event.getTime();
+        ReelingThread reelingThread = event.getReelingThread();
+        switch (event.getType()) {
+            case SIZE_CHECK: {
+                boolean predictive = reelingThread.getSizeController().isPredictive();
+                if (predictive) {
+                    if (time != reelingThread.getPredictedCheckTime()) {
+                        //Superseded by a later prediction.
+                        break;
+                    }
+                    reelingThread.setPredictedCheckTime(Double.NaN);
+                }
+                double size = reelingThread.getSize(time);
+                boolean low = reelingThread.getSizeController().isCocoonNeeded(size);
+                if (!predictive) {
+                    reelingThread.recordSize(size, low);
+                }
+                if (low && !reelingThread.isCocoonAdditionPending()) {
+                    reelingThread.setCocoonAdditionPending(true);
+                    timer.schedule(ReelingEvent.cocoonAddition(
+                            time + parameters.getCocoonAdditionDelay(), reelingThread));
+                }
+                if (!predictive) {
+                    timer.schedule(ReelingEvent.sizeCheck(
+                            time + parameters.getSizeCheckInterval(), reelingThread));
+                } else if (!low) {
+                    predictSizeCheck(timer, reelingThread, time);
+                }
+                break;
+            }
+            case COCOON_ADDITION: {
+                reelingThread.setCocoonAdditionPending(false);
+                CocoonSupplier cocoonSupplier = reelingThread.getCocoonSupplier();
+                boolean predictive = reelingThread.getSizeController().isPredictive();
+                if (cocoonSupplier.getCocoonNum() == 0) {
+                    reelingThread.recordStarvedAddition();
+                    if (Metrics.ENABLED) {
+                        STOCK_OUTS.increment();
+                    }
+                    if (predictive) {
+                        double retryTime = time + parameters.getSizeCheckInterval();
+                        reelingThread.setPredictedCheckTime(retryTime);
+                        timer.schedule(ReelingEvent.sizeCheck(retryTime, reelingThread));
+                    }
+                } else {
+                    Cocoon cocoon = cocoonSupplier.supply();
+                    if (predictive) {
+                        reelingThread.recordSizes(time);
+                    }
+                    timer.schedule(ReelingEvent.cocoonEndDropping(
+                            reelingThread.attach(cocoon, time), reelingThread, cocoon));
+                    if (predictive) {
+                        predictSizeCheck(timer, reelingThread, time);
+                    }
+                }
+                break;
+            }
+            case COCOON_END_DROPPING: {
+                boolean predictive = reelingThread.getSizeController().isPredictive();
+                if (predictive) {
+                    reelingThread.recordSizes(time);
+                }
+                reelingThread.detach(event.getCocoon());
+                if (predictive && !reelingThread.isCocoonAdditionPending()) {
+                    predictSizeCheck(timer, reelingThread, time);
+                }
+                break;
+            }
+            case SUPPLIER_REFILL:
+                cocoonSupplierManager.refill(event.getCocoonSupplier());
+                timer.schedule(ReelingEvent.supplierRefill(
+                        time + parameters.getSupplierRefillInterval(), event.getCocoonSupplier()));
+                break;
+            default:
+                throw new IllegalStateException("Unknown event type: " + event.getType());
+        }
+    }
+
+    /**
+     * Predict the next size check of a reeling thread with predictive size
+     * controller, up to its next end dropping, which predicts again.
+     *
+     * @param timer         the timer of the group of reeling thread.
+     * @param reelingThread the reeling thread.
+     * @param time          the current time.
+     */
+    private void predictSizeCheck(ReelingTimer timer, ReelingThread reelingThread, double time) {
+        double horizon = Math.min(reelingThread.getNextDropTime(), parameters.getShiftDuration());
+        double checkTime = reelingThread.getSizeController().predictCrossingTime(reelingThread, time, horizon);
+        if (checkTime == reelingThread.getPredictedCheckTime()) {
+            return;
+        }
+        if (checkTime <= parameters.getShiftDuration()) {
+            reelingThread.setPredictedCheckTime(checkTime);
+            timer.schedule(ReelingEvent.sizeCheck(checkTime, reelingThread));
+        } else {
+            reelingThread.setPredictedCheckTime(Double.NaN);
+        }
+    }
+
+    /**
+     * @return the report of run, which includes the throughput
+     * in simulated events per second of wall time.
+     */
+    public String getReport() {
+        long sizeCheckNum = 0;
+        long lowSizeCheckNum = 0;
+        long addedCocoonNum = 0;
+        long starvedAdditionNum = 0;
+        double sizeSum = 0;
+        double sizeSquareSum = 0;
+        for (ReelingThread reelingThread : reelingThreadsManager.getReelingThreads()) {
+            sizeCheckNum += reelingThread.getSizeCheckNum();
+            lowSizeCheckNum += reelingThread.getLowSizeCheckNum();
+            addedCocoonNum += reelingThread.getAddedCocoonNum();
+            starvedAdditionNum += reelingThread.getStarvedAdditionNum();
+            sizeSum += reelingThread.getSizeSum();
+            sizeSquareSum += reelingThread.getSizeSquareSum();
+        }
+        double sizeMean = sizeCheckNum > 0 ? sizeSum / sizeCheckNum : Double.NaN;
+        double sizeSD = sizeCheckNum > 1 ? Math.sqrt(Math.max(0,
+                (sizeSquareSum - sizeSum * sizeMean) / (sizeCheckNum - 1))) : Double.NaN;
+        long eventNum = getProcessedEventNum();
+        double wallSeconds = wallTimeNanos * 1e-9;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Simulated %.1f s of %d reeling threads and %d cocoon suppliers.%n",
+                reelingTimer.getCurrentTime(), getReelingThreadNum(), getCocoonSupplierNum()));
+        for (ReelingEvent.Type type : ReelingEvent.Type.values()) {
+            report.append(String.format("  %-20s %d%n", type, getProcessedEventNum(type)));
+        }
+        report.append(String.format("Cocoons attached: %d, starved additions: %d.%n",
+                addedCocoonNum, starvedAdditionNum));
+        report.append(String.format("Size: mean = %.4f, sd = %.4f, below target = %.2f%%.%n",
+                sizeMean, sizeSD, sizeCheckNum > 0 ? 100.0 * lowSizeCheckNum / sizeCheckNum : Double.NaN));
+        report.append(String.format("Processed %d events in %.3f s with %d workers, %.0f events/s.",
+                eventNum, wallSeconds, parameters.getParallelism(), eventNum / wallSeconds));
+        return report.toString();
+    }
+
+    public ReelingSystemParameters getParameters() {
+        return parameters;
+    }
+
+    public ReelingThreadsManager getReelingThreadsManager() {
+        return reelingThreadsManager;
+    }
+
+    public CocoonSupplierManager getCocoonSupplierManager() {
+        return cocoonSupplierManager;
+    }
+
+    public ReelingTimer getReelingTimer() {
+        return reelingTimer;
+    }
+
+    public long getProcessedEventNum() {
+        long sum = reelingTimer.getProcessedEventNum();
+        for (ReelingTimer groupTimer : groupTimers) {
+            sum += groupTimer.getProcessedEventNum();
+        }
+        return sum;
+    }
+
+    public long getProcessedEventNum(ReelingEvent.Type type) {
+        long sum = reelingTimer.getProcessedEventNum(type);
+        for (ReelingTimer groupTimer : groupTimers) {
+            sum += groupTimer.getProcessedEventNum(type);
+        }
+        return sum;
+    }
+
+    /**
+     * @return the wall time of simulation, in nanoseconds.
+     */
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    public int getReelingThreadNum() {
+        return parameters.getReelingThreadNum();
     }
 
     public int getCocoonSupplierNum() {
-        return 30;
+        return parameters.getCocoonSupplierNum();
     }
 
     public int getAddCocoonsNum() {
-        return 60;
+        return parameters.getAddCocoonsNum();
+    }
+
+    /**
+     * The task advancing the timers of groups in parallel.
+     */
+    private static final class AdvanceTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ReelingTimer[] timers;
+        private final int from;
+        private final int to;
+        private final double endTime;
+
+        AdvanceTask(ReelingTimer[] timers, int from, int to, double endTime) {
+            this.timers = timers;
+            this.from = from;
+            this.to = to;
+            this.endTime = endTime;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                timers[from].advance(endTime);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new AdvanceTask(timers, from, middle, endTime),
+                        new AdvanceTask(timers, middle, to, endTime));
+            }
+        }
     }
 
     public static void main(String[] args) {
         ReelingSystemParameters reelingSystemParameters = new ReelingSystemParameters();
         ReelingSystem reelingSystem = new ReelingSystem(reelingSystemParameters);
         reelingSystem.start();
+        if (Metrics.ENABLED) {
+            System.out.print(Metrics.snapshot());
+        }
     }
 }
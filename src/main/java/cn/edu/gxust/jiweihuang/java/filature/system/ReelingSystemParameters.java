@@ -13,8 +13,344 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package cn.edu.gxust.jiweihuang.java.filature.system;
 
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBaveDistribution;
+import cn.edu.gxust.jiweihuang.java.filature.cocoon.ICocoonLot;
+
+/**
+ * <p>The class {@code ReelingSystemParameters} is used for
+ * representing the parameters of a reeling system simulation.</p>
+ *
+ * <p>The parameters are immutable, the {@code with*} methods
+ * return a new instance with the changed parameter.</p>
+ *
+ * <p>The unit of time is second, the unit of length is meter.</p>
+ */
 public class ReelingSystemParameters {
+
+    private final int reelingThreadNum;
+    private final int cocoonSupplierNum;
+    private final int addCocoonsNum;
+    private final double shiftDuration;
+    private final double reelingSpeed;
+    private final double targetSize;
+    private final double sizeCheckInterval;
+    private final double cocoonAdditionDelay;
+    private final double supplierRefillInterval;
+    private final double[] nominalBaveParameters;
+    private final double baveParametersCV;
+    private final long seed;
+    private final int parallelism;
+    private final QVLBaveDistribution baveDistribution;
+    private final ICocoonLot cocoonLot;
+    private final double sizePredictionStep;
+
+    /**
+     * Create the default parameters, which describe an 8-hour shift
+     * of a 400-end reeling machine. The nominal bave parameters are the
+     * medians of the fitted parameters of the bundled lots GXLC50210 and
+     * GXRA50200, the bave is thickest at about a fifth of its length and
+     * ends at about a third of its initial size.
+     */
+    public ReelingSystemParameters() {
+        this(400, 30, 60, 8 * 3600.0, 2.5, 20.0,
+                1.0, 1.0, 120.0,
+                new double[]{770, 2.8, 0.35, 0.21}, 0.1, 20181214L,
+                Runtime.getRuntime().availableProcessors(), null, null, 0);
+    }
+
+    private ReelingSystemParameters(int reelingThreadNum, int cocoonSupplierNum,
+                                    int addCocoonsNum, double shiftDuration,
+                                    double reelingSpeed, double targetSize,
+                                    double sizeCheckInterval, double cocoonAdditionDelay,
+                                    double supplierRefillInterval, double[] nominalBaveParameters,
+                                    double baveParametersCV, long seed, int parallelism,
+                                    QVLBaveDistribution baveDistribution, ICocoonLot cocoonLot,
+                                    double sizePredictionStep) {
+        this.reelingThreadNum = reelingThreadNum;
+        this.cocoonSupplierNum = cocoonSupplierNum;
+        this.addCocoonsNum = addCocoonsNum;
+        this.shiftDuration = shiftDuration;
+        this.reelingSpeed = reelingSpeed;
+        this.targetSize = targetSize;
+        this.sizeCheckInterval = sizeCheckInterval;
+        this.cocoonAdditionDelay = cocoonAdditionDelay;
+        this.supplierRefillInterval = supplierRefillInterval;
+        this.nominalBaveParameters = nominalBaveParameters;
+        this.baveParametersCV = baveParametersCV;
+        this.seed = seed;
+        this.parallelism = parallelism;
+        this.baveDistribution = baveDistribution;
+        this.cocoonLot = cocoonLot;
+        this.sizePredictionStep = sizePredictionStep;
+    }
+
+    private static int checkPositive(int value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Expected {%s > 0},but got {%s = %d}.", name, name, value));
+        }
+        return value;
+    }
+
+    private static double checkPositive(double value, String name) {
+        if (!(value > 0)) {
+            throw new IllegalArgumentException(
+                    String.format("Expected {%s > 0},but got {%s = %s}.", name, name, value));
+        }
+        return value;
+    }
+
+    private static double checkNonNegative(double value, String name) {
+        if (!(value >= 0)) {
+            throw new IllegalArgumentException(
+                    String.format("Expected {%s >= 0},but got {%s = %s}.", name, name, value));
+        }
+        return value;
+    }
+
+    public ReelingSystemParameters withReelingThreadNum(int newReelingThreadNum) {
+        return new ReelingSystemParameters(checkPositive(newReelingThreadNum, "reelingThreadNum"),
+                cocoonSupplierNum, addCocoonsNum, shiftDuration, reelingSpeed, targetSize,
+                sizeCheckInterval, cocoonAdditionDelay, supplierRefillInterval,
+                nominalBaveParameters, baveParametersCV, seed, parallelism, baveDistribution, cocoonLot, sizePredictionStep);
+    }
+
+    public ReelingSystemParameters withCocoonSupplierNum(int newCocoonSupplierNum) {
+        return new ReelingSystemParameters(reelingThreadNum,
+                checkPositive(newCocoonSupplierNum, "cocoonSupplierNum"),
+                addCocoonsNum, shiftDuration, reelingSpeed, targetSize,
+                sizeCheckInterval, cocoonAdditionDelay, supplierRefillInterval,
+                nominalBaveParameters, baveParametersCV, seed, parallelism, baveDistribution, cocoonLot, sizePredictionStep);
+    }
+
+    public ReelingSystemParameters withAddCocoonsNum(int newAddCocoonsNum) {
+        return new ReelingSystemParameters(reelingThreadNum, cocoonSupplierNum,
+                checkPositive(newAddCocoonsNum, "addCocoonsNum"),
+                shiftDuration, reelingSpeed, targetSize,
+                sizeCheckInterval, cocoonAdditionDelay, supplierRefillInterval,
+                nominalBaveParameters, baveParametersCV, seed, parallelism, baveDistribution, cocoonLot, sizePredictionStep);
+    }
+
+    public ReelingSystemParameters withShiftDuration(double newShiftDuration) {
+        return new ReelingSystemParameters(reelingThreadNum, cocoonSupplierNum, addCocoonsNum,
+                checkPositive(newShiftDuration, "shiftDuration"), reelingSpeed, targetSize,
+                sizeCheckInterval, cocoonAdditionDelay, supplierRefillInterval,
+                nominalBaveParameters, baveParametersCV, seed, parallelism, baveDistribution, cocoonLot, sizePredictionStep);
+    }
+
+    public ReelingSystemParameters withReelingSpeed(double newReelingSpeed) {
+        return new ReelingSystemParameters(reelingThreadNum, cocoonSupplierNum, addCocoonsNum,
+                shiftDuration, checkPositive(newReelingSpeed, "reelingSpeed"), targetSize,
+                sizeCheckInterval, cocoonAdditionDelay, supplierRefillInterval,
+                nominalBaveParameters, baveParametersCV, seed, parallelism, baveDistribution, cocoonLot, sizePredictionStep);
+    }
+
+    public ReelingSystemParameters withTargetSize(double newTargetSize) {
+        return new ReelingSystemParameters(reelingThreadNum, cocoonSupplierNum, addCocoonsNum,
+                shiftDuration, reelingSpeed, checkPositive(newTargetSize, "targetSize"),
+                sizeCheckInterval, cocoonAdditionDelay, supplierRefillInterval,
+                nominalBaveParameters, baveParametersCV, seed, parallelism, baveDistribution, cocoonLot, sizePredictionStep);
+    }
+
+    public ReelingSystemParameters withSizeCheckInterval(double newSizeCheckInterval) {
+        return new ReelingSystemParameters(reelingThreadNum, cocoonSupplierNum, addCocoonsNum,
+                shiftDuration, reelingSpeed, targetSize,
+                checkPositive(newSizeCheckInterval, "sizeCheckInterval"),
+                cocoonAdditionDelay, supplierRefillInterval,
+                nominalBaveParameters, baveParametersCV, seed, parallelism, baveDistribution, cocoonLot, sizePredictionStep);
+    }
+
+    public ReelingSystemParameters withCocoonAdditionDelay(double newCocoonAdditionDelay) {
+        return new ReelingSystemParameters(reelingThreadNum, cocoonSupplierNum, addCocoonsNum,
+                shiftDuration, reelingSpeed, targetSize, sizeCheckInterval,
+                checkNonNegative(newCocoonAdditionDelay, "cocoonAdditionDelay"),
+                supplierRefillInterval, nominalBaveParameters, baveParametersCV, seed, parallelism, baveDistribution, cocoonLot, sizePredictionStep);
+    }
+
+    public ReelingSystemParameters withSupplierRefillInterval(double newSupplierRefillInterval) {
+        return new ReelingSystemParameters(reelingThreadNum, cocoonSupplierNum, addCocoonsNum,
+                shiftDuration, reelingSpeed, targetSize, sizeCheckInterval, cocoonAdditionDelay,
+                checkPositive(newSupplierRefillInterval, "supplierRefillInterval"),
+                nominalBaveParameters, baveParametersCV, seed, parallelism, baveDistribution, cocoonLot, sizePredictionStep);
+    }
+
+    /**
+     * @param newNominalBaveParameters the nominal parameters {baveLength, initialSize,
+     *                                 initialTerminalSizeRatio, maxSizePosBaveLengthRatio}
+     *                                 of the QVL baves of cocoons.
+     */
+    public ReelingSystemParameters withNominalBaveParameters(double... newNominalBaveParameters) {
+        if (newNominalBaveParameters == null || newNominalBaveParameters.length != 4) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {nominalBaveParameters.length = 4},but got {nominalBaveParameters.length = %s}.",
+                    newNominalBaveParameters == null ? "null" : newNominalBaveParameters.length));
+        }
+        return new ReelingSystemParameters(reelingThreadNum, cocoonSupplierNum, addCocoonsNum,
+                shiftDuration, reelingSpeed, targetSize, sizeCheckInterval, cocoonAdditionDelay,
+                supplierRefillInterval, newNominalBaveParameters.clone(), baveParametersCV, seed, parallelism, baveDistribution, cocoonLot, sizePredictionStep);
+    }
+
+    public ReelingSystemParameters withBaveParametersCV(double newBaveParametersCV) {
+        return new ReelingSystemParameters(reelingThreadNum, cocoonSupplierNum, addCocoonsNum,
+                shiftDuration, reelingSpeed, targetSize, sizeCheckInterval, cocoonAdditionDelay,
+                supplierRefillInterval, nominalBaveParameters,
+                checkNonNegative(newBaveParametersCV, "baveParametersCV"), seed, parallelism, baveDistribution, cocoonLot, sizePredictionStep);
+    }
+
+    public ReelingSystemParameters withSeed(long newSeed) {
+        return new ReelingSystemParameters(reelingThreadNum, cocoonSupplierNum, addCocoonsNum,
+                shiftDuration, reelingSpeed, targetSize, sizeCheckInterval, cocoonAdditionDelay,
+                supplierRefillInterval, nominalBaveParameters, baveParametersCV, newSeed, parallelism, baveDistribution, cocoonLot, sizePredictionStep);
+    }
+
+    public ReelingSystemParameters withParallelism(int newParallelism) {
+        return new ReelingSystemParameters(reelingThreadNum, cocoonSupplierNum, addCocoonsNum,
+                shiftDuration, reelingSpeed, targetSize, sizeCheckInterval, cocoonAdditionDelay,
+                supplierRefillInterval, nominalBaveParameters, baveParametersCV, seed,
+                checkPositive(newParallelism, "parallelism"), baveDistribution, cocoonLot, sizePredictionStep);
+    }
+
+    /**
+     * @param newBaveDistribution the distribution of the baves of cocoons, such as
+     *                            the distribution estimated from the fitted parameters
+     *                            of a lot, or null to use the nominal parameters
+     *                            and their coefficient of variation.
+     */
+    public ReelingSystemParameters withBaveDistribution(QVLBaveDistribution newBaveDistribution) {
+        return new ReelingSystemParameters(reelingThreadNum, cocoonSupplierNum, addCocoonsNum,
+                shiftDuration, reelingSpeed, targetSize, sizeCheckInterval, cocoonAdditionDelay,
+                supplierRefillInterval, nominalBaveParameters, baveParametersCV, seed,
+                parallelism, newBaveDistribution, cocoonLot, sizePredictionStep);
+    }
+
+    /**
+     * @param newCocoonLot the lot from which the baves of cocoons are drawn
+     *                     uniformly with replacement, or null to sample the baves
+     *                     from the bave distribution. The lot must not be appended
+     *                     during simulation.
+     */
+    public ReelingSystemParameters withCocoonLot(ICocoonLot newCocoonLot) {
+        if (newCocoonLot != null && newCocoonLot.size() == 0) {
+            throw new IllegalArgumentException(
+                    "Expected {cocoonLot.size() > 0},but got {cocoonLot.size() = 0}.");
+        }
+        return new ReelingSystemParameters(reelingThreadNum, cocoonSupplierNum, addCocoonsNum,
+                shiftDuration, reelingSpeed, targetSize, sizeCheckInterval, cocoonAdditionDelay,
+                supplierRefillInterval, nominalBaveParameters, baveParametersCV, seed,
+                parallelism, baveDistribution, newCocoonLot, sizePredictionStep);
+    }
+
+    /**
+     * @param newSizePredictionStep the step of scanning for the crossings of
+     *                              target size, in seconds, if it is positive,
+     *                              the size of every reeling thread is checked
+     *                              once at its predicted crossing instead of every
+     *                              {@code sizeCheckInterval}, see {@code SizeController}.
+     *                              The sizes of the report are still sampled every
+     *                              {@code sizeCheckInterval}.
+     *                              0, the default, for periodic size checks.
+     */
+    public ReelingSystemParameters withSizePredictionStep(double newSizePredictionStep) {
+        return new ReelingSystemParameters(reelingThreadNum, cocoonSupplierNum, addCocoonsNum,
+                shiftDuration, reelingSpeed, targetSize, sizeCheckInterval, cocoonAdditionDelay,
+                supplierRefillInterval, nominalBaveParameters, baveParametersCV, seed,
+                parallelism, baveDistribution, cocoonLot,
+                checkNonNegative(newSizePredictionStep, "sizePredictionStep"));
+    }
+
+    public int getReelingThreadNum() {
+        return reelingThreadNum;
+    }
+
+    public int getCocoonSupplierNum() {
+        return cocoonSupplierNum;
+    }
+
+    /**
+     * @return the number of cocoons that are added to a cocoon supplier
+     * at every refill.
+     */
+    public int getAddCocoonsNum() {
+        return addCocoonsNum;
+    }
+
+    public double getShiftDuration() {
+        return shiftDuration;
+    }
+
+    /**
+     * @return the reeling speed, in meter per second.
+     */
+    public double getReelingSpeed() {
+        return reelingSpeed;
+    }
+
+    /**
+     * @return the target size of a reeling thread,
+     * a cocoon is added when the size is below it.
+     */
+    public double getTargetSize() {
+        return targetSize;
+    }
+
+    public double getSizeCheckInterval() {
+        return sizeCheckInterval;
+    }
+
+    public double getSizePredictionStep() {
+        return sizePredictionStep;
+    }
+
+    /**
+     * @return the delay between a size check requesting a cocoon and
+     * the cocoon being attached to the reeling thread.
+     */
+    public double getCocoonAdditionDelay() {
+        return cocoonAdditionDelay;
+    }
+
+    public double getSupplierRefillInterval() {
+        return supplierRefillInterval;
+    }
+
+    public double[] getNominalBaveParameters() {
+        return nominalBaveParameters.clone();
+    }
+
+    /**
+     * @return the coefficient of variation of the bave parameters
+     * about their nominal values.
+     */
+    public double getBaveParametersCV() {
+        return baveParametersCV;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the number of worker threads of simulation, the result
+     * of simulation does not depend on it.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return the distribution of the baves of cocoons.
+     */
+    public QVLBaveDistribution getBaveDistribution() {
+        return baveDistribution != null ? baveDistribution :
+                QVLBaveDistribution.independent(nominalBaveParameters, baveParametersCV);
+    }
+
+    /**
+     * @return the lot from which the baves of cocoons are drawn, or null.
+     */
+    public ICocoonLot getCocoonLot() {
+        return cocoonLot;
+    }
 }
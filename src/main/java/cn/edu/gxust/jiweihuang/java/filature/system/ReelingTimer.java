@@ -15,9 +15,95 @@
  */
 package cn.edu.gxust.jiweihuang.java.filature.system;
 
+import java.util.PriorityQueue;
+
+/**
+ * <p>The class {@code ReelingTimer} is used for
+ * scheduling the events of reeling system.</p>
+ *
+ * <p>It is a discrete-event scheduler, the events are kept in a priority
+ * queue and processed in the order of time, the simulated time jumps
+ * from one event to the next, so the simulation does not depend
+ * on the real time.</p>
+ */
 public class ReelingTimer {
+
     private final ReelingSystem reelingSys;
-    public ReelingTimer(final ReelingSystem reelingSys){
+
+    private final PriorityQueue<ReelingEvent> events = new PriorityQueue<>();
+
+    private final long[] processedEventNums = new long[ReelingEvent.Type.values().length];
+
+    private double currentTime = 0;
+
+    private long sequenceCounter = 0;
+
+    public ReelingTimer(final ReelingSystem reelingSys) {
         this.reelingSys = reelingSys;
     }
+
+    /**
+     * Schedule an event, the time of event must not be earlier than current time.
+     *
+     * @param event the event to be scheduled.
+     */
+    public void schedule(ReelingEvent event) {
+        if (event.getTime() < currentTime) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {event.time >= %s},but got {event.time = %s}.",
+                    currentTime, event.getTime()));
+        }
+        event.setSequence(sequenceCounter++);
+        events.add(event);
+    }
+
+    /**
+     * Process the events in order of time until the time of next event
+     * is later than {@code endTime} or there is no event,
+     * then current time is set to {@code endTime}.
+     *
+     * @param endTime the end time of processing.
+     */
+    public void advance(double endTime) {
+        ReelingEvent event;
+        while ((event = events.peek()) != null && event.getTime() <= endTime) {
+            events.poll();
+            currentTime = event.getTime();
+            reelingSys.handle(this, event);
+            processedEventNums[event.getType().ordinal()]++;
+        }
+        currentTime = Math.max(currentTime, endTime);
+    }
+
+    /**
+     * @return the time of next event, or {@code Double.POSITIVE_INFINITY}
+     * if there is no event.
+     */
+    public double getNextEventTime() {
+        ReelingEvent event = events.peek();
+        return event == null ? Double.POSITIVE_INFINITY : event.getTime();
+    }
+
+    public double getCurrentTime() {
+        return currentTime;
+    }
+
+    /**
+     * @return the number of events that are scheduled but not processed.
+     */
+    public int getPendingEventNum() {
+        return events.size();
+    }
+
+    public long getProcessedEventNum() {
+        long sum = 0;
+        for (long num : processedEventNums) {
+            sum += num;
+        }
+        return sum;
+    }
+
+    public long getProcessedEventNum(ReelingEvent.Type type) {
+        return processedEventNums[type.ordinal()];
+    }
 }
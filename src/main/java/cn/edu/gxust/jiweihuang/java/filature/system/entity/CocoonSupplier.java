@@ -20,12 +20,28 @@ package cn.edu.gxust.jiweihuang.java.filature.system.entity;
 
 import cn.edu.gxust.jiweihuang.java.filature.cocoon.Cocoon;
 
-import java.util.*;
+import java.util.Collection;
+import java.util.SplittableRandom;
 
 /**
  * <p>The class {CocoonSupplier} is used for
  * representing cocoon supplier in reeling system.</p>
  *
+ * <p>The cocoons are kept in an array of {@code MAX_CAPACITY} as an
+ * unordered bag, a supplied cocoon is selected uniformly at random and
+ * replaced by the last cocoon, so both supply and addition of a cocoon
+ * are O(1) and do not allocate.</p>
+ *
+ * <p>Besides the cocoons in bag, a cocoon supplier has pending cocoons,
+ * which are only counted. The cocoons of a lot are exchangeable before
+ * they are reeled, so a pending cocoon is created with a bave sampled
+ * from the bave distribution when it is selected by supply, and the
+ * cocoons that are never supplied cost neither memory nor sampling.</p>
+ *
+ * <p>A new cocoon supplier is stocked with {@code DEFAULT_CAPACITY} pending
+ * cocoons, and it is refilled by {@link CocoonSupplierManager#refill(CocoonSupplier)}
+ * up to {@code MAX_CAPACITY}.</p>
+ *
  * <p>Create date:2018-11-15.</p>
  *
  * @author JiweiHuang
@@ -40,16 +56,23 @@ public class CocoonSupplier {
 
     public final int MIN_CAPACITY = 0;
 
-    private final List<Cocoon> cocoons = new ArrayList<>(DEFAULT_CAPACITY);
+    private final Cocoon[] cocoons = new Cocoon[MAX_CAPACITY];
+
+    private int cocoonNum = 0;
+
+    private int pendingCocoonNum = 0;
 
     private final int cocoonSupplierID;
 
     private final CocoonSupplierManager cocoonSupplierManager;
 
+    private final SplittableRandom random;
+
     public CocoonSupplier(final CocoonSupplierManager cocoonSupplierManager) {
         this.cocoonSupplierManager = cocoonSupplierManager;
         this.cocoonSupplierID = this.cocoonSupplierManager.createCocoonSupplierID();
-        this.add(this.cocoonSupplierManager.createCocoons());
+        this.random = this.cocoonSupplierManager.createCocoonSupplierRandom();
+        this.addPending(DEFAULT_CAPACITY);
     }
 
     /**
@@ -57,12 +80,24 @@ public class CocoonSupplier {
      * reeling thread.</p>
      *
      * @return cocoon that was supplied.
+     * @throws IllegalStateException if this cocoon supplier is empty.
      * @since 1.0.0_build-20181115
      */
     public Cocoon supply() {
-        int index = new Random().nextInt(getCocoonNum());
-        Cocoon cocoon = this.cocoons.get(index);
-        this.cocoons.remove(index);
+        int num = getCocoonNum();
+        if (num == MIN_CAPACITY) {
+            throw new IllegalStateException(String.format(
+                    "Expected {cocoonNum > %d},but got {cocoonNum = %d}.", MIN_CAPACITY, num));
+        }
+        int index = random.nextInt(num);
+        if (index >= cocoonNum) {
+            pendingCocoonNum--;
+            return this.cocoonSupplierManager.createCocoon(random);
+        }
+        Cocoon cocoon = this.cocoons[index];
+        cocoonNum--;
+        this.cocoons[index] = this.cocoons[cocoonNum];
+        this.cocoons[cocoonNum] = null;
         return cocoon;
     }
 
@@ -72,10 +107,14 @@ public class CocoonSupplier {
      * adding cocoon to cocoon supplier.
      *
      * @param cocoons cocoon that be add to cocoon supplier.
+     * @throws IllegalStateException if the cocoons exceed the remaining capacity,
+     *                               then none of them is added.
      * @since 1.0.0_build-20181115
      */
     public void add(Cocoon... cocoons) {
-        this.cocoons.addAll(Arrays.asList(cocoons));
+        checkRemainingCapacity(cocoons.length);
+        System.arraycopy(cocoons, 0, this.cocoons, cocoonNum, cocoons.length);
+        cocoonNum += cocoons.length;
     }
 
     /**
@@ -83,16 +122,65 @@ public class CocoonSupplier {
      * adding cocoon to cocoon supplier.
      *
      * @param cocoons cocoon that be add to cocoon supplier.
+     * @throws IllegalStateException if the cocoons exceed the remaining capacity,
+     *                               then none of them is added.
      * @since 1.0.0_build-20181115
      */
     public void add(Collection<? extends Cocoon> cocoons) {
-        this.cocoons.addAll(cocoons);
+        checkRemainingCapacity(cocoons.size());
+        for (Cocoon cocoon : cocoons) {
+            this.cocoons[cocoonNum++] = cocoon;
+        }
     }
 
     /**
-     * @return the number of cocoon in this cocoon supplier.
+     * The method {@code addPending(int num)} is used for adding pending cocoons,
+     * whose baves are sampled when they are supplied.
+     *
+     * @param num the number of pending cocoons.
+     * @throws IllegalStateException if the cocoons exceed the remaining capacity,
+     *                               then none of them is added.
+     */
+    public void addPending(int num) {
+        if (num < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {num >= 0},but got {num = %d}.", num));
+        }
+        checkRemainingCapacity(num);
+        pendingCocoonNum += num;
+    }
+
+    private void checkRemainingCapacity(int num) {
+        if (num > getRemainingCapacity()) {
+            throw new IllegalStateException(String.format(
+                    "Expected {cocoonNum + num <= %d},but got {cocoonNum + num = %d}.",
+                    MAX_CAPACITY, getCocoonNum() + num));
+        }
+    }
+
+    public int getCocoonSupplierID() {
+        return this.cocoonSupplierID;
+    }
+
+    /**
+     * @return the number of cocoon in this cocoon supplier,
+     * including the pending cocoons.
      */
     public int getCocoonNum() {
-        return this.cocoons.size();
+        return this.cocoonNum + this.pendingCocoonNum;
+    }
+
+    /**
+     * @return the number of pending cocoons in this cocoon supplier.
+     */
+    public int getPendingCocoonNum() {
+        return this.pendingCocoonNum;
+    }
+
+    /**
+     * @return the number of cocoons that can be added to this cocoon supplier.
+     */
+    public int getRemainingCapacity() {
+        return MAX_CAPACITY - getCocoonNum();
     }
 }
@@ -17,22 +17,32 @@
 package cn.edu.gxust.jiweihuang.java.filature.system.entity;
 
 import cn.edu.gxust.jiweihuang.java.filature.bave.IBave;
+import cn.edu.gxust.jiweihuang.java.filature.bave.qvlmodel.QVLBaveDistribution;
 import cn.edu.gxust.jiweihuang.java.filature.cocoon.Cocoon;
+import cn.edu.gxust.jiweihuang.java.filature.cocoon.ICocoonLot;
 import cn.edu.gxust.jiweihuang.java.filature.system.ReelingSystem;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.SplittableRandom;
 
 public class CocoonSupplierManager {
 
-    private static int idCounter = 0;
+    private int idCounter = 0;
 
     private final ReelingSystem reelingSys;
 
     private final List<CocoonSupplier> cocoonSuppliers = new ArrayList<>();
 
+    private final QVLBaveDistribution baveDistribution;
+
+    private final ICocoonLot cocoonLot;
+
     public CocoonSupplierManager(ReelingSystem reelingSys) {
         this.reelingSys = reelingSys;
+        this.baveDistribution = this.reelingSys.getParameters().getBaveDistribution();
+        this.cocoonLot = this.reelingSys.getParameters().getCocoonLot();
         for (int i = 0; i < this.reelingSys.getCocoonSupplierNum(); i++) {
             this.cocoonSuppliers.add(createCocoonSupplier());
         }
@@ -46,17 +56,67 @@ public class CocoonSupplierManager {
         return idCounter++;
     }
 
-    public List<Cocoon> createCocoons() {
-        List<Cocoon> cocoons = new ArrayList<>(this.reelingSys.getAddCocoonsNum());
-        for (int i = 0; i < this.reelingSys.getAddCocoonsNum(); i++) {
-            cocoons.add(new Cocoon() {
-                @Override
-                public IBave getBave() {
-                    return null;
-                }
-            });
+    /**
+     * @return the random generator of a new cocoon supplier,
+     * which is split from the master random generator of reeling system.
+     */
+    public SplittableRandom createCocoonSupplierRandom() {
+        return this.reelingSys.splitRandom();
+    }
+
+    public List<CocoonSupplier> getCocoonSuppliers() {
+        return Collections.unmodifiableList(cocoonSuppliers);
+    }
+
+    /**
+     * Create a cocoon whose bave is drawn from the cocoon lot if there is one,
+     * else sampled from the bave distribution.
+     * It is called when the cocoon is needed, such as when a cocoon supplier
+     * supplies one of its pending cocoons.
+     *
+     * @param random the random generator of caller.
+     * @return the created cocoon.
+     */
+    public Cocoon createCocoon(SplittableRandom random) {
+        final IBave bave = cocoonLot != null ?
+                cocoonLot.view(random.nextInt(cocoonLot.size())) :
+                baveDistribution.sample(random);
+        return new Cocoon() {
+            @Override
+            public IBave getBave() {
+                return bave;
+            }
+        };
+    }
+
+    public List<Cocoon> createCocoons(int num, SplittableRandom random) {
+        List<Cocoon> cocoons = new ArrayList<>(num);
+        for (int i = 0; i < num; i++) {
+            cocoons.add(createCocoon(random));
         }
         return cocoons;
     }
 
+    public QVLBaveDistribution getBaveDistribution() {
+        return baveDistribution;
+    }
+
+    /**
+     * Refill a cocoon supplier with the added cocoons,
+     * the cocoon supplier is not filled beyond its maximum capacity.
+     * The cocoons are added as pending cocoons, whose baves are sampled
+     * only when they are supplied.
+     *
+     * @param cocoonSupplier the cocoon supplier to be refilled.
+     * @return the number of cocoons added.
+     */
+    public int refill(CocoonSupplier cocoonSupplier) {
+        int num = Math.min(this.reelingSys.getAddCocoonsNum(),
+                cocoonSupplier.getRemainingCapacity());
+        if (num > 0) {
+            cocoonSupplier.addPending(num);
+        }
+        return num;
+    }
+
 }
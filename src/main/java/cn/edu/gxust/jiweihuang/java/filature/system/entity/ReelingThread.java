@@ -16,19 +16,400 @@
 
 package cn.edu.gxust.jiweihuang.java.filature.system.entity;
 
+import cn.edu.gxust.jiweihuang.java.filature.bave.IBave;
+import cn.edu.gxust.jiweihuang.java.filature.cocoon.Cocoon;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
 /**
  * <p>The class {@code ReelingThread} is used for
  * representing a reeling thread.</p>
  *
+ * <p>A reeling thread is composed of the baves of the cocoons
+ * attached to it, every bave is reeled at the reeling speed
+ * from the time its cocoon was attached, so the size of reeling
+ * thread is the sum of the sizes of baves at their reeling positions.</p>
+ *
+ * <p>The size of every bave changes with time, so the size at a new
+ * time needs an evaluation of every attached bave, which is done in one
+ * pass over the arrays by {@link #advance(double)}, once per time step.
+ * The sizes of baves and their sum at the time of last step are kept:
+ * attaching or detaching a cocoon updates the sum by the size of its bave
+ * only, so that the size is requested again at the same time, for example,
+ * by the prediction of size check after an addition, without evaluating
+ * the other baves. The size profile along the
+ * thread is sampled bave by bave with the batch method
+ * {@link IBave#getBaveSizes(double[], double[], int, int)}.</p>
+ *
+ * <p>The recorded sizes are the statistics of the size of reeling thread.
+ * If the size is checked periodically, every size check is recorded.
+ * Otherwise, the size is checked at predicted crossings only, and the
+ * recorded sizes are sampled on the same grid of times by
+ * {@link #recordSizes(double)}, from the size profile between the events
+ * which change the attached cocoons, so that the statistics do not depend
+ * on how the size is controlled.</p>
+ *
  * <p>Create date:2018-11-15.</p>
  *
  * @author JiweiHuang
  * @version 1.0.0_build-20181115
  * @since 1.0.0_build-20181115
  */
-public abstract class ReelingThread {
+public class ReelingThread {
+
+    private final int reelingThreadID;
+    private final ReelingSlot reelingSlot;
+    private final SizeController sizeController;
+    private final CocoonSupplier cocoonSupplier;
+    private final double reelingSpeed;
+    private final SplittableRandom random;
+
+    private Cocoon[] cocoons = new Cocoon[16];
+    private double[] attachTimes = new double[16];
+    private int cocoonNum = 0;
+
+    //The sizes of baves at sizeTime, and their sum.
+    private double[] baveSizes = new double[16];
+    private double size = 0;
+    private double sizeTime = 0;
+
+    //The scratch arrays of size profile.
+    private double[] profilePositions = new double[0];
+    private double[] profileSizes = new double[0];
+    private double[] recordedSizes = new double[0];
+
+    //The time of next recorded size and the interval of recorded sizes,
+    //if they are sampled by recordSizes(double).
+    private double nextRecordTime = Double.NaN;
+    private double recordInterval = Double.NaN;
+
+    private boolean cocoonAdditionPending = false;
+    //The time of the size check predicted by size controller, or NaN.
+    private double predictedCheckTime = Double.NaN;
+
+    //The statistics of reeling thread.
+    private long addedCocoonNum = 0;
+    private long droppedCocoonNum = 0;
+    private long sizeCheckNum = 0;
+    private long lowSizeCheckNum = 0;
+    private long starvedAdditionNum = 0;
+    private double sizeSum = 0;
+    private double sizeSquareSum = 0;
+
+    public ReelingThread(int reelingThreadID, CocoonSupplier cocoonSupplier,
+                         SizeController sizeController, double reelingSpeed,
+                         SplittableRandom random) {
+        this.reelingThreadID = reelingThreadID;
+        this.reelingSlot = new ReelingSlot();
+        this.sizeController = sizeController;
+        this.cocoonSupplier = cocoonSupplier;
+        this.reelingSpeed = reelingSpeed;
+        this.random = random;
+    }
+
+    public int getReelingThreadID() {
+        return reelingThreadID;
+    }
+
+    public ReelingSlot getReelingSlot() {
+        return reelingSlot;
+    }
+
+    public SizeController getSizeController() {
+        return sizeController;
+    }
+
+    /**
+     * @return the cocoon supplier which supplies cocoons for this reeling thread.
+     */
+    public CocoonSupplier getCocoonSupplier() {
+        return cocoonSupplier;
+    }
+
+    public double getReelingSpeed() {
+        return reelingSpeed;
+    }
+
+    /**
+     * @return the random generator of this reeling thread, which must only
+     * be used by the events of this reeling thread.
+     */
+    public SplittableRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * Attach a cocoon to this reeling thread.
+     *
+     * @param cocoon     the cocoon to be attached.
+     * @param attachTime the time at which the reeling of its bave begins.
+     * @return the time at which the bave is used up.
+     */
+    public double attach(Cocoon cocoon, double attachTime) {
+        if (cocoonNum == cocoons.length) {
+            cocoons = Arrays.copyOf(cocoons, 2 * cocoonNum);
+            attachTimes = Arrays.copyOf(attachTimes, 2 * cocoonNum);
+            baveSizes = Arrays.copyOf(baveSizes, 2 * cocoonNum);
+        }
+        if (attachTime > sizeTime) {
+            //The bave is not reeled at the time of the sizes yet.
+            advance(attachTime);
+        }
+        cocoons[cocoonNum] = cocoon;
+        attachTimes[cocoonNum] = attachTime;
+        baveSizes[cocoonNum] = cocoon.getBave().getBaveSize((sizeTime - attachTime) * reelingSpeed);
+        size += baveSizes[cocoonNum];
+        cocoonNum++;
+        addedCocoonNum++;
+        return attachTime + cocoon.getBave().getBaveLength() / reelingSpeed;
+    }
+
+    /**
+     * Detach a cocoon from this reeling thread.
+     *
+     * @param cocoon the cocoon to be detached.
+     * @return true if the cocoon was attached to this reeling thread.
+     */
+    public boolean detach(Cocoon cocoon) {
+        for (int i = 0; i < cocoonNum; i++) {
+            if (cocoons[i] == cocoon) {
+                cocoonNum--;
+                size -= baveSizes[i];
+                cocoons[i] = cocoons[cocoonNum];
+                attachTimes[i] = attachTimes[cocoonNum];
+                baveSizes[i] = baveSizes[cocoonNum];
+                cocoons[cocoonNum] = null;
+                droppedCocoonNum++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of cocoons attached to this reeling thread.
+     */
+    public int getCocoonNum() {
+        return cocoonNum;
+    }
+
+    /**
+     * @param time the time.
+     * @return the size of this reeling thread at time.
+     */
+    public double getSize(double time) {
+        if (time != sizeTime) {
+            advance(time);
+        }
+        return size;
+    }
+
+    /**
+     * Advance the sizes of all attached baves and their sum to time,
+     * in one pass over the arrays.
+     *
+     * @param time the time.
+     */
+    public void advance(double time) {
+        double sum = 0;
+        for (int i = 0; i < cocoonNum; i++) {
+            baveSizes[i] = cocoons[i].getBave().getBaveSize((time - attachTimes[i]) * reelingSpeed);
+            sum += baveSizes[i];
+        }
+        size = sum;
+        sizeTime = time;
+    }
+
+    /**
+     * @param time the time.
+     * @return the derivative of the size of this reeling thread with respect to time.
+     */
+    public double getSizeDerivative(double time) {
+        double derivative = 0;
+        for (int i = 0; i < cocoonNum; i++) {
+            derivative += cocoons[i].getBave().getBaveSizeDerivative((time - attachTimes[i]) * reelingSpeed);
+        }
+        return derivative * reelingSpeed;
+    }
+
+    /**
+     * @return the time at which the first of the attached baves is used up,
+     * or {@code Double.POSITIVE_INFINITY} if no cocoon is attached.
+     */
+    public double getNextDropTime() {
+        double next = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < cocoonNum; i++) {
+            next = Math.min(next, attachTimes[i] + cocoons[i].getBave().getBaveLength() / reelingSpeed);
+        }
+        return next;
+    }
+
+    /**
+     * Sample the size profile of the thread reeled from the attached cocoons,
+     * {@code out[j]} is the size at time {@code startTime + j * resolution / reelingSpeed},
+     * that is, at the length {@code j * resolution} along the thread. A bave
+     * contributes to the samples between its reeling positions {@code 0}
+     * and its bave length only, and the cocoons attached later are not included.
+     *
+     * @param startTime  the time of first sample.
+     * @param resolution the length between samples along the thread.
+     * @param out        the array for receiving the sizes.
+     */
+    public void getSizeProfile(double startTime, double resolution, double[] out) {
+        getSizeProfile(startTime, resolution, out, out.length);
+    }
+
+    /**
+     * Sample the size profile into the first {@code len} elements of {@code out},
+     * as {@link #getSizeProfile(double, double, double[])}.
+     *
+     * @param startTime  the time of first sample.
+     * @param resolution the length between samples along the thread.
+     * @param out        the array for receiving the sizes.
+     * @param len        the number of samples.
+     */
+    public void getSizeProfile(double startTime, double resolution, double[] out, int len) {
+        if (!(resolution > 0)) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {resolution > 0},but got {resolution = %s}.", resolution));
+        }
+        if (len < 0 || len > out.length) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "Expected {0 <= len <= %d},but got {len = %d}.", out.length, len));
+        }
+        if (profilePositions.length < len) {
+            profilePositions = new double[len];
+            profileSizes = new double[len];
+        }
+        final double[] pos = profilePositions;
+        final double[] sizes = profileSizes;
+        Arrays.fill(out, 0, len, 0);
+        for (int i = 0; i < cocoonNum; i++) {
+            IBave bave = cocoons[i].getBave();
+            final double startPos = (startTime - attachTimes[i]) * reelingSpeed;
+            final int from = (int) Math.max(0, Math.ceil(-startPos / resolution));
+            final int to = (int) Math.min(len - 1, Math.floor((bave.getBaveLength() - startPos) / resolution));
+            if (from > to) {
+                continue;
+            }
+            for (int j = from; j <= to; j++) {
+                pos[j] = startPos + j * resolution;
+            }
+            bave.getBaveSizes(pos, sizes, from, to - from + 1);
+            for (int j = from; j <= to; j++) {
+                out[j] += sizes[j];
+            }
+        }
+    }
+
+    /**
+     * @return the time of the size check predicted by size controller,
+     * or NaN if no size check is predicted. A size check at another
+     * time was superseded by a later prediction.
+     */
+    public double getPredictedCheckTime() {
+        return predictedCheckTime;
+    }
+
+    public void setPredictedCheckTime(double predictedCheckTime) {
+        this.predictedCheckTime = predictedCheckTime;
+    }
+
+    public boolean isCocoonAdditionPending() {
+        return cocoonAdditionPending;
+    }
+
+    public void setCocoonAdditionPending(boolean cocoonAdditionPending) {
+        this.cocoonAdditionPending = cocoonAdditionPending;
+    }
+
+    /**
+     * Start sampling the recorded sizes by {@link #recordSizes(double)}.
+     *
+     * @param firstTime the time of first recorded size.
+     * @param interval  the interval of recorded sizes, such as {@code sizeCheckInterval}.
+     */
+    public void startRecordingSizes(double firstTime, double interval) {
+        if (!(interval > 0)) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {interval > 0},but got {interval = %s}.", interval));
+        }
+        this.nextRecordTime = firstTime;
+        this.recordInterval = interval;
+    }
+
+    /**
+     * Record the sizes at the times of the grid started by
+     * {@link #startRecordingSizes(double, double)} before {@code endTime}.
+     * The attached cocoons must not have changed since the last call,
+     * so it is called before every attachment and detachment,
+     * and at the end of simulation.
+     *
+     * @param endTime the time up to which the sizes are recorded, exclusively.
+     */
+    public void recordSizes(double endTime) {
+        if (!(nextRecordTime < endTime)) {
+            return;
+        }
+        int num = (int) Math.ceil((endTime - nextRecordTime) / recordInterval);
+        if (recordedSizes.length < num) {
+            recordedSizes = new double[Math.max(num, 2 * recordedSizes.length)];
+        }
+        getSizeProfile(nextRecordTime, recordInterval * reelingSpeed, recordedSizes, num);
+        for (int j = 0; j < num; j++) {
+            recordSize(recordedSizes[j], sizeController.isCocoonNeeded(recordedSizes[j]));
+        }
+        nextRecordTime += num * recordInterval;
+    }
+
+    /**
+     * Record the size of a size check, or a sampled size.
+     *
+     * @param size the checked size.
+     * @param low  whether the size is below the target size.
+     */
+    public void recordSize(double size, boolean low) {
+        sizeCheckNum++;
+        if (low) {
+            lowSizeCheckNum++;
+        }
+        sizeSum += size;
+        sizeSquareSum += size * size;
+    }
+
+    /**
+     * Record a cocoon addition which failed because its cocoon supplier was empty.
+     */
+    public void recordStarvedAddition() {
+        starvedAdditionNum++;
+    }
+
+    public long getStarvedAdditionNum() {
+        return starvedAdditionNum;
+    }
+
+    public long getAddedCocoonNum() {
+        return addedCocoonNum;
+    }
+
+    public long getDroppedCocoonNum() {
+        return droppedCocoonNum;
+    }
+
+    public long getSizeCheckNum() {
+        return sizeCheckNum;
+    }
+
+    public long getLowSizeCheckNum() {
+        return lowSizeCheckNum;
+    }
 
-    public abstract ReelingSlot getReelingSlot();
+    public double getSizeSum() {
+        return sizeSum;
+    }
 
-    public abstract SizeController getSizeController();
+    public double getSizeSquareSum() {
+        return sizeSquareSum;
+    }
 }
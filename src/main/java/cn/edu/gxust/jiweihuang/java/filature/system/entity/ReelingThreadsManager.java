@@ -18,11 +18,43 @@ package cn.edu.gxust.jiweihuang.java.filature.system.entity;
 
 import cn.edu.gxust.jiweihuang.java.filature.system.ReelingSystem;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+/**
+ * <p>The class {@code ReelingThreadsManager} is used for
+ * managing the reeling threads of reeling system.</p>
+ *
+ * <p>The reeling threads are divided into contiguous groups
+ * in order, and every group is supplied by a cocoon supplier.</p>
+ */
 public class ReelingThreadsManager {
     private final ReelingSystem reelingSys;
 
+    private final List<ReelingThread> reelingThreads = new ArrayList<>();
+
     public ReelingThreadsManager(final ReelingSystem reelingSys) {
         this.reelingSys = reelingSys;
+        int reelingThreadNum = this.reelingSys.getReelingThreadNum();
+        int cocoonSupplierNum = this.reelingSys.getCocoonSupplierNum();
+        CocoonSupplierManager cocoonSupplierManager = this.reelingSys.getCocoonSupplierManager();
+        for (int i = 0; i < reelingThreadNum; i++) {
+            int supplierIndex = (int) ((long) i * cocoonSupplierNum / reelingThreadNum);
+            this.reelingThreads.add(createReelingThread(i,
+                    cocoonSupplierManager.getCocoonSuppliers().get(supplierIndex)));
+        }
+    }
+
+    public ReelingThread createReelingThread(int reelingThreadID, CocoonSupplier cocoonSupplier) {
+        return new ReelingThread(reelingThreadID, cocoonSupplier,
+                new SizeController(this.reelingSys.getParameters().getTargetSize(),
+                        this.reelingSys.getParameters().getSizePredictionStep()),
+                this.reelingSys.getParameters().getReelingSpeed(),
+                this.reelingSys.splitRandom());
+    }
+
+    public List<ReelingThread> getReelingThreads() {
+        return Collections.unmodifiableList(reelingThreads);
     }
 }
@@ -16,10 +16,21 @@
 
 package cn.edu.gxust.jiweihuang.java.filature.system.entity;
 
-
 /**
  * <p>The class {@code SizeController} is used for
- * representing the controller of raw silk size.</p>
+ * deciding whether a cocoon should be added to a reeling thread.</p>
+ *
+ * <p>A predictive size controller, i.e. one with a positive prediction step,
+ * also predicts when the size of reeling thread will fall below the target
+ * size, so that the size is checked once at the crossing instead of
+ * periodically. The size of reeling thread changes smoothly between the
+ * attachment and the end dropping of its cocoons, so the crossing is found
+ * on the sum of the QVL curves of the attached baves: the curve is scanned
+ * with the prediction step, an interval whose end is below the target size
+ * contains a crossing, and an interval whose derivative goes from negative
+ * to positive is searched for a minimum below the target size; the crossing
+ * is then refined by Newton's method safeguarded by bisection, using the
+ * analytic derivatives of baves.</p>
  *
  * <p>Create date:2018-11-15.</p>
  *
@@ -28,4 +39,145 @@ package cn.edu.gxust.jiweihuang.java.filature.system.entity;
  * @since 1.0.0_build-20181115
  */
 public class SizeController {
+
+    /**
+     * The accuracy of predicted crossing time, in seconds.
+     */
+    public static final double TIME_ACCURACY = 1e-6;
+
+    private static final int MAX_REFINEMENTS = 100;
+
+    private final double targetSize;
+
+    private final double predictionStep;
+
+    public SizeController(double targetSize) {
+        this(targetSize, 0);
+    }
+
+    /**
+     * @param targetSize     the target size of reeling thread.
+     * @param predictionStep the step of scanning for crossing, in seconds,
+     *                       or 0 if the size is checked periodically.
+     */
+    public SizeController(double targetSize, double predictionStep) {
+        if (!(predictionStep >= 0)) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {predictionStep >= 0},but got {predictionStep = %s}.", predictionStep));
+        }
+        this.targetSize = targetSize;
+        this.predictionStep = predictionStep;
+    }
+
+    public double getTargetSize() {
+        return targetSize;
+    }
+
+    public double getPredictionStep() {
+        return predictionStep;
+    }
+
+    /**
+     * @return true if the crossings of target size are predicted.
+     */
+    public boolean isPredictive() {
+        return predictionStep > 0;
+    }
+
+    /**
+     * @param size the size of reeling thread.
+     * @return true if the size is below the target size.
+     */
+    public boolean isCocoonNeeded(double size) {
+        return size < targetSize;
+    }
+
+    /**
+     * Predict the first time in {@code [from, to]} at which the size of
+     * reeling thread is below the target size, the attached cocoons are
+     * assumed not to change in the range, so {@code to} should not be
+     * later than {@link ReelingThread#getNextDropTime()}.
+     *
+     * @param reelingThread the reeling thread.
+     * @param from          the beginning of range.
+     * @param to            the end of range.
+     * @return the predicted time, at which the size is below the target
+     * size, or {@code Double.POSITIVE_INFINITY} if the size does not
+     * fall below the target size in the range.
+     */
+    public double predictCrossingTime(ReelingThread reelingThread, double from, double to) {
+        if (!isPredictive()) {
+            throw new IllegalStateException("Expected {predictionStep > 0},but got {predictionStep = 0}.");
+        }
+        double t0 = from;
+        double f0 = reelingThread.getSize(t0) - targetSize;
+        if (f0 < 0) {
+            return from;
+        }
+        double d0 = reelingThread.getSizeDerivative(t0);
+        while (t0 < to) {
+            double t1 = Math.min(t0 + predictionStep, to);
+            double f1 = reelingThread.getSize(t1) - targetSize;
+            if (f1 < 0) {
+                return refineCrossing(reelingThread, t0, t1);
+            }
+            double d1 = reelingThread.getSizeDerivative(t1);
+            if (d0 < 0 && d1 > 0) {
+                double tm = findMinimum(reelingThread, t0, t1);
+                if (reelingThread.getSize(tm) < targetSize) {
+                    return refineCrossing(reelingThread, t0, tm);
+                }
+            }
+            t0 = t1;
+            d0 = d1;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Find the crossing in {@code [above, below]}, the size is not below
+     * the target size at {@code above}, and below it at {@code below}.
+     *
+     * @return a time within {@code TIME_ACCURACY} after the crossing,
+     * at which the size is below the target size.
+     */
+    private double refineCrossing(ReelingThread reelingThread, double above, double below) {
+        double t = 0.5 * (above + below);
+        for (int i = 0; i < MAX_REFINEMENTS; i++) {
+            double f = reelingThread.getSize(t) - targetSize;
+            if (f < 0) {
+                below = t;
+            } else {
+                above = t;
+            }
+            if (below - above <= TIME_ACCURACY) {
+                break;
+            }
+            double step = -f / reelingThread.getSizeDerivative(t);
+            if (Math.abs(step) < 0.5 * TIME_ACCURACY) {
+                //Step over the crossing to close the bracket.
+                step = f < 0 ? -0.5 * TIME_ACCURACY : 0.5 * TIME_ACCURACY;
+            }
+            double next = t + step;
+            //Bisect if Newton's step leaves the bracket.
+            t = next > above && next < below ? next : 0.5 * (above + below);
+        }
+        return below;
+    }
+
+    /**
+     * Find the minimum in {@code [a, b]} by bisection on the derivative,
+     * which is negative at {@code a} and positive at {@code b}.
+     */
+    private double findMinimum(ReelingThread reelingThread, double a, double b) {
+        for (int i = 0; i < MAX_REFINEMENTS && b - a > TIME_ACCURACY; i++) {
+            double t = 0.5 * (a + b);
+            if (reelingThread.getSizeDerivative(t) < 0) {
+                a = t;
+            } else {
+                b = t;
+            }
+        }
+        return 0.5 * (a + b);
+    }
 }
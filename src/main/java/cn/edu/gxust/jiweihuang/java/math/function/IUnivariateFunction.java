@@ -18,6 +18,8 @@ package cn.edu.gxust.jiweihuang.java.math.function;
 
 import cn.edu.gxust.jiweihuang.java.math.IMathBase;
 import org.hipparchus.analysis.UnivariateFunction;
+import org.hipparchus.exception.NullArgumentException;
+import org.hipparchus.util.MathUtils;
 
 import java.io.Serializable;
 
@@ -124,4 +126,61 @@ public interface IUnivariateFunction extends UnivariateFunction,
      */
     String formula();
 
+    /**
+     * <p>The method {@code values(double[] xs, double[] out)} is used to
+     * calculate the values of function at all independent variables
+     * in {@code xs}, the results are written into {@code out}.</p>
+     *
+     * @param xs  the x-values, independent variables.
+     * @param out the array for receiving the values of function,
+     *            its length should not be less than the length of {@code xs}.
+     */
+    default void values(double[] xs, double[] out) {
+        values(xs, out, 0, xs.length);
+    }
+
+    /**
+     * <p>The method {@code values(double[] xs, double[] out, int offset, int length)}
+     * is used to calculate the values of function at independent variables
+     * {@code xs[offset]} to {@code xs[offset + length - 1]}, the results are
+     * written into the same positions of {@code out}.</p>
+     *
+     * <p>The implement class (or subinterface) of this interface
+     * should override this method with a plain loop over local
+     * parameters, so that the loop can be optimized by JIT compiler.</p>
+     *
+     * @param xs     the x-values, independent variables.
+     * @param out    the array for receiving the values of function.
+     * @param offset the start index in {@code xs} and {@code out}.
+     * @param length the number of values to calculate.
+     */
+    default void values(double[] xs, double[] out, int offset, int length) {
+        checkValuesRange(xs, out, offset, length);
+        for (int i = offset; i < offset + length; i++) {
+            out[i] = value(xs[i]);
+        }
+    }
+
+    /**
+     * <p>The method {@code checkValuesRange(double[] xs, double[] out, int offset, int length)}
+     * is used to check the arguments of batch evaluation.</p>
+     *
+     * @param xs     the x-values, independent variables.
+     * @param out    the array for receiving the values of function.
+     * @param offset the start index in {@code xs} and {@code out}.
+     * @param length the number of values to calculate.
+     * @throws NullArgumentException    if {@code xs} or {@code out} is {@code null}.
+     * @throws IllegalArgumentException if the range is out of {@code xs} or {@code out}.
+     */
+    static void checkValuesRange(double[] xs, double[] out, int offset, int length)
+            throws NullArgumentException, IllegalArgumentException {
+        MathUtils.checkNotNull(xs);
+        MathUtils.checkNotNull(out);
+        if (offset < 0 || length < 0 ||
+                offset + length > xs.length || offset + length > out.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected the range [%d,%d) in {xs.length == %d} and {out.length == %d},but it is out of bounds.",
+                    offset, offset + length, xs.length, out.length));
+        }
+    }
 }
@@ -15,106 +15,133 @@
  */
 package cn.edu.gxust.jiweihuang.java.math.function;
 
-import org.hipparchus.analysis.integration.RombergIntegrator;
-import org.hipparchus.analysis.integration.SimpsonIntegrator;
-import org.hipparchus.analysis.integration.IterativeLegendreGaussIntegrator;
-import org.hipparchus.analysis.integration.TrapezoidIntegrator;
-import org.hipparchus.analysis.integration.MidPointIntegrator;
+import cn.edu.gxust.jiweihuang.java.math.integration.LegendreGaussRule;
+import cn.edu.gxust.jiweihuang.java.math.integration.UnivariateIntegrationEngine;
 
 public interface IUnivariateIntegrableFunction extends IUnivariateFunction {
     default double integrateRomberg() {
-        return new RombergIntegrator().integrate(Integer.MAX_VALUE, this, lowerX(), upperX());
+        return UnivariateIntegrationEngine.getDefault().integrateRomberg(Integer.MAX_VALUE, this, lowerX(), upperX());
     }
 
     default double integrateRomberg(double upperX) {
-        return new RombergIntegrator().integrate(Integer.MAX_VALUE, this, lowerX(), upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateRomberg(Integer.MAX_VALUE, this, lowerX(), upperX);
     }
 
     default double integrateRomberg(double lowerX, double upperX) {
-        return new RombergIntegrator().integrate(Integer.MAX_VALUE, this, lowerX, upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateRomberg(Integer.MAX_VALUE, this, lowerX, upperX);
     }
 
     default double integrateRomberg(int maxEval, double lowerX, double upperX) {
-        return new RombergIntegrator().integrate(maxEval, this, lowerX, upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateRomberg(maxEval, this, lowerX, upperX);
     }
 
     default double integrateSimpson() {
-        return new SimpsonIntegrator().integrate(Integer.MAX_VALUE, this, lowerX(), upperX());
+        return UnivariateIntegrationEngine.getDefault().integrateSimpson(Integer.MAX_VALUE, this, lowerX(), upperX());
     }
 
     default double integrateSimpson(double upperX) {
-        return new SimpsonIntegrator().integrate(Integer.MAX_VALUE, this, lowerX(), upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateSimpson(Integer.MAX_VALUE, this, lowerX(), upperX);
     }
 
     default double integrateSimpson(double lowerX, double upperX) {
-        return new SimpsonIntegrator().integrate(Integer.MAX_VALUE, this, lowerX, upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateSimpson(Integer.MAX_VALUE, this, lowerX, upperX);
     }
 
     default double integrateSimpson(int maxEval, double lowerX, double upperX) {
-        return new SimpsonIntegrator().integrate(maxEval, this, lowerX, upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateSimpson(maxEval, this, lowerX, upperX);
     }
 
     default double integrateTrapezoid() {
-        return new TrapezoidIntegrator().integrate(Integer.MAX_VALUE, this, lowerX(), upperX());
+        return UnivariateIntegrationEngine.getDefault().integrateTrapezoid(Integer.MAX_VALUE, this, lowerX(), upperX());
     }
 
     default double integrateTrapezoid(double upperX) {
-        return new TrapezoidIntegrator().integrate(Integer.MAX_VALUE, this, lowerX(), upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateTrapezoid(Integer.MAX_VALUE, this, lowerX(), upperX);
     }
 
     default double integrateTrapezoid(double lowerX, double upperX) {
-        return new TrapezoidIntegrator().integrate(Integer.MAX_VALUE, this, lowerX, upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateTrapezoid(Integer.MAX_VALUE, this, lowerX, upperX);
     }
 
     default double integrateTrapezoid(int maxEval, double lowerX, double upperX) {
-        return new TrapezoidIntegrator().integrate(maxEval, this, lowerX, upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateTrapezoid(maxEval, this, lowerX, upperX);
     }
 
     default double integrateMidPoint() {
-        return new MidPointIntegrator().integrate(Integer.MAX_VALUE, this, lowerX(), upperX());
+        return UnivariateIntegrationEngine.getDefault().integrateMidPoint(Integer.MAX_VALUE, this, lowerX(), upperX());
     }
 
     default double integrateMidPoint(double upperX) {
-        return new MidPointIntegrator().integrate(Integer.MAX_VALUE, this, lowerX(), upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateMidPoint(Integer.MAX_VALUE, this, lowerX(), upperX);
     }
 
     default double integrateMidPoint(double lowerX, double upperX) {
-        return new MidPointIntegrator().integrate(Integer.MAX_VALUE, this, lowerX, upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateMidPoint(Integer.MAX_VALUE, this, lowerX, upperX);
     }
 
     default double integrateMidPoint(int maxEval, double lowerX, double upperX) {
-        return new MidPointIntegrator().integrate(maxEval, this, lowerX, upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateMidPoint(maxEval, this, lowerX, upperX);
     }
 
     default double integrateIterativeLegendreGauss() {
-        return new IterativeLegendreGaussIntegrator(IterativeLegendreGaussN,
-                IterativeLegendreGaussIntegrator.DEFAULT_RELATIVE_ACCURACY, IterativeLegendreGaussIntegrator.DEFAULT_ABSOLUTE_ACCURACY).
-                integrate(Integer.MAX_VALUE, this, lowerX(), upperX());
+        return UnivariateIntegrationEngine.getDefault().integrateIterativeLegendreGauss(IterativeLegendreGaussN, Integer.MAX_VALUE, this, lowerX(), upperX());
     }
 
     default double integrateIterativeLegendreGauss(double upperX) {
-        return new IterativeLegendreGaussIntegrator(IterativeLegendreGaussN,
-                IterativeLegendreGaussIntegrator.DEFAULT_RELATIVE_ACCURACY, IterativeLegendreGaussIntegrator.DEFAULT_ABSOLUTE_ACCURACY).
-                integrate(Integer.MAX_VALUE, this, lowerX(), upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateIterativeLegendreGauss(IterativeLegendreGaussN, Integer.MAX_VALUE, this, lowerX(), upperX);
     }
 
     default double integrateIterativeLegendreGauss(double lowerX, double upperX) {
-        return new IterativeLegendreGaussIntegrator(IterativeLegendreGaussN,
-                IterativeLegendreGaussIntegrator.DEFAULT_RELATIVE_ACCURACY, IterativeLegendreGaussIntegrator.DEFAULT_ABSOLUTE_ACCURACY).
-                integrate(Integer.MAX_VALUE, this, lowerX, upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateIterativeLegendreGauss(IterativeLegendreGaussN, Integer.MAX_VALUE, this, lowerX, upperX);
     }
 
     default double integrateIterativeLegendreGauss(int maxEval, double lowerX, double upperX) {
-        return new IterativeLegendreGaussIntegrator(IterativeLegendreGaussN,
-                IterativeLegendreGaussIntegrator.DEFAULT_RELATIVE_ACCURACY, IterativeLegendreGaussIntegrator.DEFAULT_ABSOLUTE_ACCURACY).
-                integrate(maxEval, this, lowerX, upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateIterativeLegendreGauss(IterativeLegendreGaussN, maxEval, this, lowerX, upperX);
     }
 
     default double integrateIterativeLegendreGauss(int n, int maxEval, double lowerX, double upperX) {
-        return new IterativeLegendreGaussIntegrator(n,
-                IterativeLegendreGaussIntegrator.DEFAULT_RELATIVE_ACCURACY,
-                IterativeLegendreGaussIntegrator.DEFAULT_ABSOLUTE_ACCURACY).
-                integrate(maxEval, this, lowerX, upperX);
+        return UnivariateIntegrationEngine.getDefault().integrateIterativeLegendreGauss(n, maxEval, this, lowerX, upperX);
+    }
+
+    /**
+     * <p>The method {@code integrateGaussLegendre(int points, double lowerX, double upperX)}
+     * is used to integrate the function by the fixed-order Legendre-Gauss rule
+     * with {@code points} points, the rules with 8, 16 and 32 points are precomputed.</p>
+     *
+     * @param points the number of points of rule.
+     * @param lowerX the lower limit of integrating range.
+     * @param upperX the upper limit of integrating range.
+     * @return the integral value.
+     */
+    default double integrateGaussLegendre(int points, double lowerX, double upperX) {
+        return UnivariateIntegrationEngine.getDefault().integrateGaussLegendre(points, this, lowerX, upperX);
+    }
+
+    /**
+     * <p>The method {@code integrateGaussLegendre(int points, int panels, double lowerX, double upperX)}
+     * is used to integrate the function by the composite Legendre-Gauss rule,
+     * the range is divided into {@code panels} panels with equal width, and
+     * the values at all nodes are calculated by the batch method
+     * {@code values(double[] xs, double[] out)}.</p>
+     *
+     * @param points the number of points of rule in every panel.
+     * @param panels the number of panels.
+     * @param lowerX the lower limit of integrating range.
+     * @param upperX the upper limit of integrating range.
+     * @return the integral value.
+     */
+    default double integrateGaussLegendre(int points, int panels, double lowerX, double upperX) {
+        if (panels <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {panels > 0},but got {panels == %d}.", panels));
+        }
+        LegendreGaussRule rule = UnivariateIntegrationEngine.getDefault().getLegendreGaussRule(points);
+        double[] nodes = new double[points * panels];
+        double[] values = new double[points * panels];
+        rule.compositeNodes(lowerX, upperX, panels, nodes);
+        values(nodes, values);
+        UnivariateIntegrationEngine.recordIntegral(nodes.length);
+        return rule.compositeSum(lowerX, upperX, panels, values);
     }
 
     int IterativeLegendreGaussN = 20;
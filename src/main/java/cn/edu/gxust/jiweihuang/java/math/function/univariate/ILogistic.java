@@ -18,7 +18,9 @@ package cn.edu.gxust.jiweihuang.java.math.function.univariate;
 
 import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateDerivativeFunction;
 import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateDifferentiableFunction;
+import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateFunction;
 import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateIntegralFunction;
+import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateIntegrableFunction;
 import org.hipparchus.analysis.ParametricUnivariateFunction;
 import org.hipparchus.analysis.differentiation.DSCompiler;
 import org.hipparchus.analysis.differentiation.DerivativeStructure;
@@ -42,9 +44,11 @@ import org.hipparchus.util.MathUtils;
  * @see IUnivariateDifferentiableFunction
  * @see IUnivariateDerivativeFunction
  * @see IUnivariateIntegralFunction
+ * @see IUnivariateIntegrableFunction
  */
 public interface ILogistic extends IUnivariateDifferentiableFunction,
-        IUnivariateDerivativeFunction, IUnivariateIntegralFunction {
+        IUnivariateDerivativeFunction, IUnivariateIntegralFunction,
+        IUnivariateIntegrableFunction {
     /**
      * <p> Create Date:2018-11-20 </p>
      *
@@ -161,6 +165,27 @@ public interface ILogistic extends IUnivariateDifferentiableFunction,
         return getLogisticM() / (1 + expItem(x));
     }
 
+    /**
+     * The method {@code values(double[] xs, double[] out, int offset, int length)}
+     * is used to get the calculated values of function at a batch of independent variables.
+     * the parameters are read once before the loop.
+     *
+     * @param xs     independent variables
+     * @param out    the array for receiving the calculated values of function.
+     * @param offset the start index in {@code xs} and {@code out}.
+     * @param length the number of values to calculate.
+     */
+    @Override
+    default void values(double[] xs, double[] out, int offset, int length) {
+        IUnivariateFunction.checkValuesRange(xs, out, offset, length);
+        final double m = getLogisticM();
+        final double k = getLogisticK();
+        final double x0 = getLogisticX0();
+        for (int i = offset; i < offset + length; i++) {
+            out[i] = m / (1 + Math.exp(-k * (xs[i] - x0)));
+        }
+    }
+
     /**
      * <p> Create Date:2018-11-20 </p>
      *
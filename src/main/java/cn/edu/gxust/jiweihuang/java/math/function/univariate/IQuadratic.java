@@ -19,6 +19,7 @@ package cn.edu.gxust.jiweihuang.java.math.function.univariate;
 import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateDerivativeFunction;
 import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateDifferentiableFunction;
 import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateIntegralFunction;
+import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateIntegrableFunction;
 
 /**
  * <p> The interface {@code IQuadratic} is used for representing Quadratic Function.</p>
@@ -30,9 +31,11 @@ import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateIntegralFunction;
  * @see IUnivariateDifferentiableFunction
  * @see IUnivariateDerivativeFunction
  * @see IUnivariateIntegralFunction
+ * @see IUnivariateIntegrableFunction
  */
 public interface IQuadratic extends IUnivariateDifferentiableFunction,
-        IUnivariateDerivativeFunction, IUnivariateIntegralFunction {
+        IUnivariateDerivativeFunction, IUnivariateIntegralFunction,
+        IUnivariateIntegrableFunction {
     /**
      * <p> Create Date:2018-11-20 </p>
      *
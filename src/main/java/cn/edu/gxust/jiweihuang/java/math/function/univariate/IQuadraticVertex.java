@@ -18,6 +18,7 @@ package cn.edu.gxust.jiweihuang.java.math.function.univariate;
 
 import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateDerivativeFunction;
 import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateDifferentiableFunction;
+import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateFunction;
 import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateIntegralFunction;
 import org.hipparchus.analysis.ParametricUnivariateFunction;
 import org.hipparchus.analysis.differentiation.DSCompiler;
@@ -227,6 +228,28 @@ public interface IQuadraticVertex extends IQuadratic {
         return getQuadraticVertexA() * Math.pow(x - getQuadraticVertexB(), 2.0) + getQuadraticVertexC();
     }
 
+    /**
+     * The method {@code values(double[] xs, double[] out, int offset, int length)}
+     * is used to get the calculated values of function at a batch of independent variables.
+     * the parameters are read once before the loop.
+     *
+     * @param xs     independent variables
+     * @param out    the array for receiving the calculated values of function.
+     * @param offset the start index in {@code xs} and {@code out}.
+     * @param length the number of values to calculate.
+     */
+    @Override
+    default void values(double[] xs, double[] out, int offset, int length) {
+        IUnivariateFunction.checkValuesRange(xs, out, offset, length);
+        final double a = getQuadraticVertexA();
+        final double b = getQuadraticVertexB();
+        final double c = getQuadraticVertexC();
+        for (int i = offset; i < offset + length; i++) {
+            final double dx = xs[i] - b;
+            out[i] = a * dx * dx + c;
+        }
+    }
+
     /**
      * <p> Create Date:2018-11-20 </p>
      *
@@ -17,6 +17,10 @@ package cn.edu.gxust.jiweihuang.java.math.function.univariate;
 
 import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateDerivativeFunction;
 import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateDifferentiableFunction;
+import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateFunction;
+import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateIntegrableFunction;
+import cn.edu.gxust.jiweihuang.java.math.function.IUnivariateIntegralFunction;
+import cn.edu.gxust.jiweihuang.java.math.special.FermiDirac;
 import org.hipparchus.analysis.ParametricUnivariateFunction;
 import org.hipparchus.analysis.differentiation.DSCompiler;
 import org.hipparchus.analysis.differentiation.DerivativeStructure;
@@ -28,7 +32,7 @@ import org.hipparchus.util.MathUtils;
  * The interface {@code IQuadraticVertexLogistic} is used for representing the composite function of logistic and quadratic function.
  */
 public interface IQuadraticVertexLogistic extends IUnivariateDifferentiableFunction,
-        IUnivariateDerivativeFunction {
+        IUnivariateDerivativeFunction, IUnivariateIntegralFunction, IUnivariateIntegrableFunction {
 
     /**
      * @return the object of QuadraticVertex
@@ -93,6 +97,48 @@ public interface IQuadraticVertexLogistic extends IUnivariateDifferentiableFunct
         return getLogistic().getLogisticX0();
     }
 
+    //The default implementation of method in {IUnivariateIntegralFunction} interface.
+    //================================
+
+    /**
+     * <p>The method {@code integrate(double x)} is used to get the integral value
+     * of integral function at independent variable {@code x}.</p>
+     *
+     * <p>The quadratic function times logistic function is integrated by parts
+     * three times, the repeated integrals of logistic function are
+     * the complete Fermi-Dirac integrals, so that the integral is
+     * obtained in closed form with O(1) cost.</p>
+     *
+     * @param x independent variable
+     * @return the integral value of integral function at independent variable {@code x}.
+     * @see FermiDirac
+     */
+    @Override
+    default double integrate(double x) {
+        return IQuadraticVertexLogistic.integrate(x, getQuadraticVertexA(), getQuadraticVertexB(),
+                getQuadraticVertexC(), getLogisticM(), getLogisticK(), getLogisticX0(),
+                getQuadraticVertexLogisticD()) + getIntegralConstants();
+    }
+
+    /**
+     * <p>The method {@code iformula()}is used to get the the analytic expression of integral function.</p>
+     * <p>where, F0, F1 and F2 are the complete Fermi-Dirac integrals.</p>
+     *
+     * @return the the analytic expression of integral function.
+     */
+    @Override
+    default String iformula() {
+        return String.format("iqvl(x)=%.5f*((%.5f*(x-%.5f)^2+%.5f)*F0(%.5f*(x-%.5f))/%.5f" +
+                        "-2*%.5f*(x-%.5f)*F1(%.5f*(x-%.5f))/%.5f^2" +
+                        "+2*%.5f*F2(%.5f*(x-%.5f))/%.5f^3)+%.5f*x",
+                getLogisticM(),
+                getQuadraticVertexA(), getQuadraticVertexB(), getQuadraticVertexC(),
+                getLogisticK(), getLogisticX0(), getLogisticK(),
+                getQuadraticVertexA(), getQuadraticVertexB(), getLogisticK(), getLogisticX0(), getLogisticK(),
+                getQuadraticVertexA(), getLogisticK(), getLogisticX0(), getLogisticK(),
+                getQuadraticVertexLogisticD());
+    }
+
     //The default implementation of method in {IUnivariateDerivativeFunction} interface.
     //================================
 
@@ -105,7 +151,8 @@ public interface IQuadraticVertexLogistic extends IUnivariateDifferentiableFunct
      */
     @Override
     default double derivative(double x) {
-        return getLogistic().value(x) * getQuadraticVertex().derivative(x) + getLogistic().derivative(x) * getQuadraticVertex().value(x);
+        return IQuadraticVertexLogistic.derivative(x, getQuadraticVertexA(), getQuadraticVertexB(),
+                getQuadraticVertexC(), getLogisticM(), getLogisticK(), getLogisticX0());
     }
 
     /**
@@ -134,6 +181,33 @@ public interface IQuadraticVertexLogistic extends IUnivariateDifferentiableFunct
         return (getLogisticM() * (getQuadraticVertexC() + getQuadraticVertexA() * Math.pow(-getQuadraticVertexB() + x, 2))) / (1 + Math.exp(-getLogisticK() * (-getLogisticX0() + x))) + getQuadraticVertexLogisticD();
     }
 
+    /**
+     * The method {@code values(double[] xs, double[] out, int offset, int length)}
+     * is used to get the calculated values of function at a batch of independent variables.
+     * the parameters are read once before the loop.
+     *
+     * @param xs     independent variables
+     * @param out    the array for receiving the calculated values of function.
+     * @param offset the start index in {@code xs} and {@code out}.
+     * @param length the number of values to calculate.
+     */
+    @Override
+    default void values(double[] xs, double[] out, int offset, int length) {
+        IUnivariateFunction.checkValuesRange(xs, out, offset, length);
+        final double a = getQuadraticVertexA();
+        final double b = getQuadraticVertexB();
+        final double c = getQuadraticVertexC();
+        final double m = getLogisticM();
+        final double k = getLogisticK();
+        final double x0 = getLogisticX0();
+        final double d = getQuadraticVertexLogisticD();
+        for (int i = offset; i < offset + length; i++) {
+            final double x = xs[i];
+            final double dx = x - b;
+            out[i] = m * (a * dx * dx + c) / (1 + Math.exp(-k * (x - x0))) + d;
+        }
+    }
+
     /**
      * @param t {@code DerivativeStructure}
      * @return {@code DerivativeStructure} for derivative value with any order.
@@ -142,7 +216,9 @@ public interface IQuadraticVertexLogistic extends IUnivariateDifferentiableFunct
      */
     @Override
     default DerivativeStructure value(DerivativeStructure t) {
-        return getLogistic().value(t).multiply(getQuadraticVertex().value(t)).add(getQuadraticVertexLogisticD());
+        DerivativeStructure logistic = t.subtract(getLogisticX0()).multiply(getLogisticK()).negate().exp().add(1).pow(-1).multiply(getLogisticM());
+        DerivativeStructure quadraticVertex = t.subtract(getQuadraticVertexB()).pow(2).multiply(getQuadraticVertexA()).add(getQuadraticVertexC());
+        return logistic.multiply(quadraticVertex).add(getQuadraticVertexLogisticD());
     }
 
     //接口IUnivariateFunction中方法的缺省实现。
@@ -222,4 +298,55 @@ public interface IQuadraticVertexLogistic extends IUnivariateDifferentiableFunct
                         double m, double k, double x0, double d) {
         return IQuadraticVertex.value(x, a, b, c) * ILogistic.value(x, m, k, x0) + d;
     }
+
+    /**
+     * The QVL function with {@code c = 0} and {@code m = 1}, which is
+     * the form of QVL function used by the bave model.
+     */
+    static double value(double x, double a, double b, double k, double x0, double d) {
+        final double dx = x - b;
+        return a * dx * dx / (1 + Math.exp(-k * (x - x0))) + d;
+    }
+
+    /**
+     * The batch form of {@link #value(double, double, double, double, double, double)},
+     * the range of arrays is not checked.
+     */
+    static void values(double[] xs, double[] out, int offset, int length,
+                       double a, double b, double k, double x0, double d) {
+        for (int i = offset; i < offset + length; i++) {
+            final double x = xs[i];
+            final double dx = x - b;
+            out[i] = a * dx * dx / (1 + Math.exp(-k * (x - x0))) + d;
+        }
+    }
+
+    /**
+     * The integral of QVL function, it is calculated in closed form by
+     * the complete Fermi-Dirac integrals, if {@code k == 0}, the logistic
+     * function is the constant {@code m/2}.
+     */
+    static double integrate(double x, double a, double b, double c,
+                            double m, double k, double x0, double d) {
+        if (k == 0) {
+            return m * IQuadraticVertex.integrate(x, a, b, c) / 2 + d * x;
+        }
+        final double t = k * (x - x0);
+        final double q = IQuadraticVertex.value(x, a, b, c);
+        final double dq = IQuadraticVertex.derivative(x, a, b, c);
+        return m * (q * FermiDirac.f0(t) / k - dq * FermiDirac.f1(t) / (k * k) +
+                2 * a * FermiDirac.f2(t) / (k * k * k)) + d * x;
+    }
+
+    /**
+     * The derivative of QVL function, it is calculated from
+     * the parameters directly, so that no object of component
+     * function will be created.
+     */
+    static double derivative(double x, double a, double b, double c,
+                             double m, double k, double x0) {
+        double s = ILogistic.logisticDenominatorItem(x, k, x0);
+        return m * s * IQuadraticVertex.derivative(x, a, b, c) +
+                m * k * s * (1 - s) * IQuadraticVertex.value(x, a, b, c);
+    }
 }
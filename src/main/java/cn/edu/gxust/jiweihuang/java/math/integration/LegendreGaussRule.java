@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.math.integration;
+
+import cn.edu.gxust.jiweihuang.java.math.IMathBase;
+import org.hipparchus.analysis.UnivariateFunction;
+import org.hipparchus.analysis.integration.gauss.GaussIntegrator;
+import org.hipparchus.analysis.integration.gauss.GaussIntegratorFactory;
+import org.hipparchus.exception.LocalizedCoreFormats;
+import org.hipparchus.exception.MathIllegalArgumentException;
+
+/**
+ * <p>The class {@code LegendreGaussRule} is used for representing
+ * the Legendre-Gauss quadrature rule with fixed number of points
+ * on the reference interval [-1,1].</p>
+ *
+ * <p>The nodes and weights are calculated once (with high precision)
+ * when the rule is created, the rule is immutable, so that it can be
+ * shared among threads and applied to any interval without
+ * creating any object.</p>
+ *
+ * @see GaussIntegratorFactory
+ */
+public final class LegendreGaussRule implements IMathBase {
+
+    /**
+     * The precomputed 8-point rule.
+     */
+    public static final LegendreGaussRule POINTS_8 = new LegendreGaussRule(8);
+
+    /**
+     * The precomputed 16-point rule.
+     */
+    public static final LegendreGaussRule POINTS_16 = new LegendreGaussRule(16);
+
+    /**
+     * The precomputed 32-point rule.
+     */
+    public static final LegendreGaussRule POINTS_32 = new LegendreGaussRule(32);
+
+    private final double[] points;
+    private final double[] weights;
+
+    /**
+     * @param numberOfPoints the number of points of rule.
+     * @throws MathIllegalArgumentException if {@code numberOfPoints <= 0}.
+     */
+    public LegendreGaussRule(int numberOfPoints) throws MathIllegalArgumentException {
+        if (numberOfPoints <= 0) {
+            throw new MathIllegalArgumentException(LocalizedCoreFormats.NUMBER_OF_POINTS, numberOfPoints);
+        }
+        GaussIntegrator reference = new GaussIntegratorFactory().legendreHighPrecision(numberOfPoints);
+        this.points = new double[numberOfPoints];
+        this.weights = new double[numberOfPoints];
+        for (int i = 0; i < numberOfPoints; i++) {
+            this.points[i] = reference.getPoint(i);
+            this.weights[i] = reference.getWeight(i);
+        }
+    }
+
+    /**
+     * <p>The method {@code of(int numberOfPoints)} is used to get the rule
+     * with {@code numberOfPoints} points, the precomputed rules will be
+     * returned for 8, 16 and 32 points.</p>
+     *
+     * @param numberOfPoints the number of points of rule.
+     * @return the Legendre-Gauss rule.
+     * @throws MathIllegalArgumentException if {@code numberOfPoints <= 0}.
+     */
+    public static LegendreGaussRule of(int numberOfPoints) throws MathIllegalArgumentException {
+        switch (numberOfPoints) {
+            case 8:
+                return POINTS_8;
+            case 16:
+                return POINTS_16;
+            case 32:
+                return POINTS_32;
+            default:
+                return new LegendreGaussRule(numberOfPoints);
+        }
+    }
+
+    /**
+     * @return the number of points of rule.
+     */
+    public int getNumberOfPoints() {
+        return points.length;
+    }
+
+    /**
+     * @param index the index of point.
+     * @return the point (node) on the reference interval [-1,1].
+     */
+    public double getPoint(int index) {
+        return points[index];
+    }
+
+    /**
+     * @param index the index of point.
+     * @return the weight of point on the reference interval [-1,1].
+     */
+    public double getWeight(int index) {
+        return weights[index];
+    }
+
+    /**
+     * <p>The method {@code integrate(UnivariateFunction f, double lowerX, double upperX)}
+     * is used to apply the rule to the interval [{@code lowerX},{@code upperX}].</p>
+     *
+     * <p>The nodes are transformed on the fly and the terms are added with
+     * compensated summation, the same as {@code GaussIntegrator}.</p>
+     *
+     * @param f      the function to integrate.
+     * @param lowerX the lower limit of integrating range.
+     * @param upperX the upper limit of integrating range.
+     * @return the approximate integral value.
+     */
+    public double integrate(UnivariateFunction f, double lowerX, double upperX) {
+        final double scale = (upperX - lowerX) / 2;
+        final double shift = lowerX + scale;
+        double s = 0;
+        double c = 0;
+        for (int i = 0; i < points.length; i++) {
+            final double y = weights[i] * scale * f.value(points[i] * scale + shift) - c;
+            final double t = s + y;
+            c = (t - s) - y;
+            s = t;
+        }
+        return s;
+    }
+
+    /**
+     * <p>The method {@code compositeNodes(double lowerX, double upperX, int panels, double[] nodes)}
+     * is used to get the nodes of composite rule, the interval [{@code lowerX},{@code upperX}]
+     * is divided into {@code panels} panels with equal width, and the rule is
+     * applied to every panel.</p>
+     *
+     * <p>The nodes of panel {@code j} are written into
+     * {@code nodes[j * n]} to {@code nodes[j * n + n - 1]},
+     * where {@code n} is the number of points of rule.</p>
+     *
+     * @param lowerX the lower limit of integrating range.
+     * @param upperX the upper limit of integrating range.
+     * @param panels the number of panels.
+     * @param nodes  the array for receiving the nodes, its length
+     *               should not be less than {@code panels * n}.
+     */
+    public void compositeNodes(double lowerX, double upperX, int panels, double[] nodes) {
+        final int n = points.length;
+        final double step = (upperX - lowerX) / panels;
+        final double scale = step / 2;
+        for (int j = 0; j < panels; j++) {
+            final double shift = lowerX + j * step + scale;
+            for (int i = 0; i < n; i++) {
+                nodes[j * n + i] = points[i] * scale + shift;
+            }
+        }
+    }
+
+    /**
+     * <p>The method {@code compositeSum(double lowerX, double upperX, int panels, double[] values)}
+     * is used to get the integral value of composite rule from the values of function
+     * at the nodes given by {@link #compositeNodes(double, double, int, double[])}.</p>
+     *
+     * @param lowerX the lower limit of integrating range.
+     * @param upperX the upper limit of integrating range.
+     * @param panels the number of panels.
+     * @param values the values of function at the nodes of composite rule.
+     * @return the approximate integral value.
+     */
+    public double compositeSum(double lowerX, double upperX, int panels, double[] values) {
+        final int n = points.length;
+        final double scale = (upperX - lowerX) / panels / 2;
+        double sum = 0;
+        for (int j = 0; j < panels; j++) {
+            double s = 0;
+            for (int i = 0; i < n; i++) {
+                s += weights[i] * values[j * n + i];
+            }
+            sum += s;
+        }
+        return sum * scale;
+    }
+}
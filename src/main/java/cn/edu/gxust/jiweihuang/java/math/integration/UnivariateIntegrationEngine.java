@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.math.integration;
+
+import cn.edu.gxust.jiweihuang.java.math.IMathBase;
+import cn.edu.gxust.jiweihuang.java.metrics.Counter;
+import cn.edu.gxust.jiweihuang.java.metrics.Histogram;
+import cn.edu.gxust.jiweihuang.java.metrics.Metrics;
+import org.hipparchus.analysis.UnivariateFunction;
+import org.hipparchus.analysis.integration.BaseAbstractUnivariateIntegrator;
+import org.hipparchus.analysis.integration.IterativeLegendreGaussIntegrator;
+import org.hipparchus.analysis.integration.MidPointIntegrator;
+import org.hipparchus.analysis.integration.RombergIntegrator;
+import org.hipparchus.analysis.integration.SimpsonIntegrator;
+import org.hipparchus.analysis.integration.TrapezoidIntegrator;
+import org.hipparchus.analysis.solvers.UnivariateSolverUtils;
+import org.hipparchus.exception.LocalizedCoreFormats;
+import org.hipparchus.exception.MathIllegalArgumentException;
+import org.hipparchus.exception.MathIllegalStateException;
+import org.hipparchus.util.MathUtils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>The class {@code UnivariateIntegrationEngine} is used for
+ * numerical integration of univariate function, it is the back end
+ * of the default methods in {@code IUnivariateIntegrableFunction}.</p>
+ *
+ * <p>The Legendre-Gauss rules are calculated once per number of points
+ * and cached in the engine, the cache is thread-safe. The iterative
+ * Legendre-Gauss integration follows the algorithm of
+ * {@code IterativeLegendreGaussIntegrator}, but it applies the cached rule
+ * to every sub-interval instead of building a new rule for it.</p>
+ *
+ * <p>The Romberg, Simpson, trapezoid and mid-point integrators of
+ * {@code hipparchus} keep the state of integration in their fields,
+ * so that a new one is created for every integration.</p>
+ *
+ * <p>The integrals and their function evaluations are recorded to
+ * {@code Metrics} if it is enabled.</p>
+ *
+ * @see LegendreGaussRule
+ * @see IterativeLegendreGaussIntegrator
+ */
+public final class UnivariateIntegrationEngine implements IMathBase {
+
+    private static final UnivariateIntegrationEngine DEFAULT_ENGINE = new UnivariateIntegrationEngine(
+            BaseAbstractUnivariateIntegrator.DEFAULT_RELATIVE_ACCURACY,
+            BaseAbstractUnivariateIntegrator.DEFAULT_ABSOLUTE_ACCURACY);
+
+    private final double relativeAccuracy;
+    private final double absoluteAccuracy;
+
+    private static final Counter INTEGRALS = Metrics.counter("integration.integrals");
+    private static final Histogram INTEGRAL_EVALUATIONS = Metrics.histogram("integration.evaluations");
+
+    private final ConcurrentMap<Integer, LegendreGaussRule> legendreGaussRules = new ConcurrentHashMap<>();
+
+    /**
+     * @param relativeAccuracy the relative accuracy of iterative Legendre-Gauss integration.
+     * @param absoluteAccuracy the absolute accuracy of iterative Legendre-Gauss integration.
+     */
+    public UnivariateIntegrationEngine(double relativeAccuracy, double absoluteAccuracy) {
+        this.relativeAccuracy = relativeAccuracy;
+        this.absoluteAccuracy = absoluteAccuracy;
+    }
+
+    /**
+     * @return the shared engine with the default accuracy of {@code hipparchus}.
+     */
+    public static UnivariateIntegrationEngine getDefault() {
+        return DEFAULT_ENGINE;
+    }
+
+    /**
+     * <p>The method {@code getLegendreGaussRule(int numberOfPoints)} is used
+     * to get the cached Legendre-Gauss rule, the rule will be calculated
+     * on first use.</p>
+     *
+     * @param numberOfPoints the number of points of rule.
+     * @return the Legendre-Gauss rule.
+     * @throws MathIllegalArgumentException if {@code numberOfPoints <= 0}.
+     */
+    public LegendreGaussRule getLegendreGaussRule(int numberOfPoints) throws MathIllegalArgumentException {
+        LegendreGaussRule rule = legendreGaussRules.get(numberOfPoints);
+        if (rule == null) {
+            rule = legendreGaussRules.computeIfAbsent(numberOfPoints, LegendreGaussRule::of);
+        }
+        return rule;
+    }
+
+    /**
+     * @param maxEval the maximum number of function evaluations.
+     * @param f       the function to integrate.
+     * @param lowerX  the lower limit of integrating range.
+     * @param upperX  the upper limit of integrating range.
+     * @return the integral value by Romberg method.
+     */
+    public double integrateRomberg(int maxEval, UnivariateFunction f, double lowerX, double upperX) {
+        RombergIntegrator integrator = new RombergIntegrator();
+        double integral = integrator.integrate(maxEval, f, lowerX, upperX);
+        recordIntegral(integrator.getEvaluations());
+        return integral;
+    }
+
+    /**
+     * @param maxEval the maximum number of function evaluations.
+     * @param f       the function to integrate.
+     * @param lowerX  the lower limit of integrating range.
+     * @param upperX  the upper limit of integrating range.
+     * @return the integral value by Simpson method.
+     */
+    public double integrateSimpson(int maxEval, UnivariateFunction f, double lowerX, double upperX) {
+        SimpsonIntegrator integrator = new SimpsonIntegrator();
+        double integral = integrator.integrate(maxEval, f, lowerX, upperX);
+        recordIntegral(integrator.getEvaluations());
+        return integral;
+    }
+
+    /**
+     * @param maxEval the maximum number of function evaluations.
+     * @param f       the function to integrate.
+     * @param lowerX  the lower limit of integrating range.
+     * @param upperX  the upper limit of integrating range.
+     * @return the integral value by trapezoid method.
+     */
+    public double integrateTrapezoid(int maxEval, UnivariateFunction f, double lowerX, double upperX) {
+        TrapezoidIntegrator integrator = new TrapezoidIntegrator();
+        double integral = integrator.integrate(maxEval, f, lowerX, upperX);
+        recordIntegral(integrator.getEvaluations());
+        return integral;
+    }
+
+    /**
+     * @param maxEval the maximum number of function evaluations.
+     * @param f       the function to integrate.
+     * @param lowerX  the lower limit of integrating range.
+     * @param upperX  the upper limit of integrating range.
+     * @return the integral value by mid-point method.
+     */
+    public double integrateMidPoint(int maxEval, UnivariateFunction f, double lowerX, double upperX) {
+        MidPointIntegrator integrator = new MidPointIntegrator();
+        double integral = integrator.integrate(maxEval, f, lowerX, upperX);
+        recordIntegral(integrator.getEvaluations());
+        return integral;
+    }
+
+    /**
+     * <p>The method {@code integrateIterativeLegendreGauss(int n, int maxEval,
+     * UnivariateFunction f, double lowerX, double upperX)} is used to integrate
+     * the function with iterative Legendre-Gauss method, the interval is
+     * divided into more and more sub-intervals until the result converges.</p>
+     *
+     * @param n       the number of points of Legendre-Gauss rule.
+     * @param maxEval the maximum number of function evaluations.
+     * @param f       the function to integrate.
+     * @param lowerX  the lower limit of integrating range.
+     * @param upperX  the upper limit of integrating range.
+     * @return the integral value.
+     * @throws MathIllegalArgumentException if {@code n <= 0} or {@code lowerX >= upperX}.
+     * @throws MathIllegalStateException    if the maximum number of evaluations is exceeded.
+     */
+    public double integrateIterativeLegendreGauss(int n, int maxEval, UnivariateFunction f,
+                                                  double lowerX, double upperX)
+            throws MathIllegalArgumentException, MathIllegalStateException {
+        MathUtils.checkNotNull(f);
+        UnivariateSolverUtils.verifyInterval(lowerX, upperX);
+        final LegendreGaussRule rule = getLegendreGaussRule(n);
+
+        if (n > maxEval) {
+            throw new MathIllegalStateException(LocalizedCoreFormats.MAX_COUNT_EXCEEDED, maxEval);
+        }
+        // Compute first estimate with a single step.
+        int evaluations = 0;
+        double oldt = stage(rule, f, lowerX, upperX, 1);
+        evaluations += n;
+        int iterations = 0;
+        int stages = 2;
+        while (true) {
+            if ((long) evaluations + (long) stages * n > maxEval) {
+                throw new MathIllegalStateException(LocalizedCoreFormats.MAX_COUNT_EXCEEDED, maxEval);
+            }
+            // Improve integral with a larger number of steps.
+            final double t = stage(rule, f, lowerX, upperX, stages);
+            evaluations += stages * n;
+            // Estimate the error.
+            final double delta = Math.abs(t - oldt);
+            final double limit = Math.max(absoluteAccuracy,
+                    relativeAccuracy * (Math.abs(oldt) + Math.abs(t)) * 0.5);
+            // check convergence
+            if (iterations + 1 >= BaseAbstractUnivariateIntegrator.DEFAULT_MIN_ITERATIONS_COUNT &&
+                    delta <= limit) {
+                recordIntegral(evaluations);
+                return t;
+            }
+            // Prepare next iteration.
+            final double ratio = Math.min(4, Math.pow(delta / limit, 0.5 / n));
+            stages = Math.max((int) (ratio * stages), stages + 1);
+            oldt = t;
+            iterations++;
+        }
+    }
+
+    /**
+     * <p>The method {@code integrateGaussLegendre(int points, UnivariateFunction f,
+     * double lowerX, double upperX)} is used to integrate the function with
+     * a single fixed-order Legendre-Gauss rule, it is exact for polynomials
+     * of degree up to {@code 2 * points - 1} and accurate for smooth functions.</p>
+     *
+     * @param points the number of points of rule, 8, 16 and 32 are precomputed.
+     * @param f      the function to integrate.
+     * @param lowerX the lower limit of integrating range.
+     * @param upperX the upper limit of integrating range.
+     * @return the integral value.
+     * @throws MathIllegalArgumentException if {@code points <= 0}.
+     */
+    public double integrateGaussLegendre(int points, UnivariateFunction f,
+                                         double lowerX, double upperX)
+            throws MathIllegalArgumentException {
+        MathUtils.checkNotNull(f);
+        double integral = getLegendreGaussRule(points).integrate(f, lowerX, upperX);
+        recordIntegral(points);
+        return integral;
+    }
+
+    /**
+     * <p>The method {@code recordIntegral(int evaluations)} is used to record
+     * an integral to {@code Metrics}, it does nothing if the metrics are disabled.</p>
+     *
+     * @param evaluations the number of function evaluations of integral.
+     */
+    public static void recordIntegral(int evaluations) {
+        if (Metrics.ENABLED) {
+            INTEGRALS.increment();
+            INTEGRAL_EVALUATIONS.record(evaluations);
+        }
+    }
+
+    private static double stage(LegendreGaussRule rule, UnivariateFunction f,
+                                double lowerX, double upperX, int n) {
+        final double step = (upperX - lowerX) / n;
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            final double a = lowerX + i * step;
+            sum += rule.integrate(f, a, a + step);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.math.special;
+
+import cn.edu.gxust.jiweihuang.java.math.IMathBase;
+
+/**
+ * <p>The class {@code FermiDirac} is used for calculating the complete
+ * Fermi-Dirac integrals of order 0, 1 and 2.</p>
+ *
+ * <p> formula:F_j(t)=-Li_(j+1)(-exp(t))</p>
+ * <p> where, Li_s —— the polylogarithm of order s.</p>
+ *
+ * <p>They are the repeated integrals of the logistic function
+ * {@code 1/(1+exp(-t))}, i.e. F_0'(t)=1/(1+exp(-t)) and F_j'(t)=F_(j-1)(t),
+ * so that the integral of polynomial times logistic function can be
+ * expressed by them in closed form.</p>
+ *
+ * <p>For {@code t <= 0}, the alternating series
+ * {@code sum((-1)^(n+1)*exp(n*t)/n^(j+1))} is summed by the
+ * Cohen-Villegas-Zagier acceleration with fixed number of terms,
+ * for {@code t > 0}, the reflection formulas of polylogarithm are used.</p>
+ *
+ * <p> Reference:https://en.wikipedia.org/wiki/Complete_Fermi-Dirac_integral</p>
+ * <p> Reference:H. Cohen, F. Rodriguez Villegas, D. Zagier,
+ * Convergence acceleration of alternating series, Experiment. Math. 9 (2000).</p>
+ */
+public final class FermiDirac implements IMathBase {
+
+    /**
+     * The number of terms of accelerated series, the relative error
+     * is about {@code 5.83^(-TERMS)}.
+     */
+    private static final int TERMS = 24;
+
+    /**
+     * The weights of Cohen-Villegas-Zagier acceleration.
+     */
+    private static final double[] WEIGHTS = new double[TERMS];
+
+    private static final double PI2_6 = Math.PI * Math.PI / 6.0;
+
+    static {
+        double d = Math.pow(3 + Math.sqrt(8), TERMS);
+        d = (d + 1 / d) / 2;
+        double b = -1;
+        double c = -d;
+        for (int k = 0; k < TERMS; k++) {
+            c = b - c;
+            WEIGHTS[k] = c / d;
+            b = (k + TERMS) * (k - TERMS) * b / ((k + 0.5) * (k + 1));
+        }
+    }
+
+    private FermiDirac() {
+    }
+
+    /**
+     * @param t independent variable
+     * @return the complete Fermi-Dirac integral of order 0, {@code log(1+exp(t))}.
+     */
+    public static double f0(double t) {
+        return t > 0 ? t + Math.log1p(Math.exp(-t)) : Math.log1p(Math.exp(t));
+    }
+
+    /**
+     * @param t independent variable
+     * @return the complete Fermi-Dirac integral of order 1, {@code -Li_2(-exp(t))}.
+     */
+    public static double f1(double t) {
+        if (t > 0) {
+            return PI2_6 + t * t / 2 - series(Math.exp(-t), 2);
+        }
+        return series(Math.exp(t), 2);
+    }
+
+    /**
+     * @param t independent variable
+     * @return the complete Fermi-Dirac integral of order 2, {@code -Li_3(-exp(t))}.
+     */
+    public static double f2(double t) {
+        if (t > 0) {
+            return PI2_6 * t + t * t * t / 6 + series(Math.exp(-t), 3);
+        }
+        return series(Math.exp(t), 3);
+    }
+
+    /**
+     * The accelerated sum of {@code sum((-1)^n*z^(n+1)/(n+1)^s)}, where {@code 0 <= z <= 1}.
+     */
+    private static double series(double z, int s) {
+        double sum = 0;
+        double zn = z;
+        for (int k = 0; k < TERMS; k++) {
+            double n = k + 1;
+            double ns = s == 2 ? n * n : n * n * n;
+            sum += WEIGHTS[k] * zn / ns;
+            zn *= z;
+        }
+        return sum;
+    }
+}
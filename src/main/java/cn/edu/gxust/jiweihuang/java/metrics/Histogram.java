@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>The class {@code Histogram} is a histogram of non-negative
+ * {@code long} values, such as latencies in nanoseconds or numbers
+ * of iterations, in the manner of HdrHistogram.</p>
+ *
+ * <p>The values below {@code 32} have their own buckets, and every
+ * power of two above is divided into {@code 32} buckets of equal width,
+ * so that a value is recorded with a relative error below {@code 1/32}
+ * over the whole range of {@code long}, in a fixed array of
+ * {@value #BUCKET_NUM} buckets. The buckets are updated by atomic
+ * increments without locking.</p>
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_NUM = 1 << SUB_BUCKET_BITS;
+    static final int BUCKET_NUM = SUB_BUCKET_NUM * (64 - SUB_BUCKET_BITS);
+
+    private final String name;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_NUM);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    Histogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param value the value to record, the negative value is recorded as zero.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_NUM) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKET_NUM * (shift + 1) + (int) ((value >>> shift) - SUB_BUCKET_NUM);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_NUM) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_NUM - 1;
+        long lower = (long) (SUB_BUCKET_NUM + index % SUB_BUCKET_NUM) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? Double.NaN : (double) getSum() / n;
+    }
+
+    /**
+     * @param percentile the percentile, in {@code [0,100]}.
+     * @return the highest value equivalent to the value at percentile,
+     * or zero if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected {0 <= percentile <= 100},but got {percentile = %s}.", percentile));
+        }
+        long[] counts = new long[BUCKET_NUM];
+        long total = 0;
+        for (int i = 0; i < BUCKET_NUM; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_NUM; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return Math.min(bucketUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKET_NUM; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: count = %d, mean = %.2f, p50 = %d, p90 = %d, p99 = %d, max = %d",
+                name, getCount(), getMean(), getValueAtPercentile(50),
+                getValueAtPercentile(90), getValueAtPercentile(99), getMax());
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>The class {@code Metrics} is the registry of the counters and
+ * histograms of hot paths, such as fitting, integration and simulation.</p>
+ *
+ * <p>The metrics are disabled unless the system property
+ * {@code jfilature.metrics} is {@code true}. {@link #ENABLED} is a constant,
+ * the instrumented code tests it before measuring, so the JIT compiler removes
+ * the measurement when it is disabled. The following system properties
+ * export the snapshots when the metrics are enabled:</p>
+ * <ul>
+ * <li>{@code jfilature.metrics.file}: the file to which a snapshot
+ * is written on exit of JVM.</li>
+ * <li>{@code jfilature.metrics.jmx}: if {@code true}, the metrics are
+ * registered as the MBean {@value #OBJECT_NAME}.</li>
+ * </ul>
+ */
+public final class Metrics {
+
+    /**
+     * Whether the metrics are recorded.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("jfilature.metrics");
+
+    public static final String OBJECT_NAME = "cn.edu.gxust.jiweihuang.java.metrics:type=Metrics";
+
+    private static final ConcurrentMap<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    private static volatile long resetTimeNanos = System.nanoTime();
+
+    static {
+        if (ENABLED) {
+            String file = System.getProperty("jfilature.metrics.file");
+            if (file != null) {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> writeSnapshot(Paths.get(file))));
+            }
+            if (Boolean.getBoolean("jfilature.metrics.jmx")) {
+                registerMBean();
+            }
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * @param name the name of counter.
+     * @return the counter of name, which is created on first use.
+     */
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * @param name the name of histogram.
+     * @return the histogram of name, which is created on first use.
+     */
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, Histogram::new);
+    }
+
+    /**
+     * @return the counters, sorted by name.
+     */
+    public static Map<String, Counter> getCounters() {
+        return new TreeMap<>(COUNTERS);
+    }
+
+    /**
+     * @return the histograms, sorted by name.
+     */
+    public static Map<String, Histogram> getHistograms() {
+        return new TreeMap<>(HISTOGRAMS);
+    }
+
+    /**
+     * @return the seconds since the metrics were created or reset.
+     */
+    public static double getElapsedSeconds() {
+        return (System.nanoTime() - resetTimeNanos) * 1e-9;
+    }
+
+    /**
+     * Reset all counters and histograms, it is not atomic
+     * with respect to the concurrent updates.
+     */
+    public static void reset() {
+        for (Counter counter : COUNTERS.values()) {
+            counter.reset();
+        }
+        for (Histogram histogram : HISTOGRAMS.values()) {
+            histogram.reset();
+        }
+        resetTimeNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the snapshot of metrics as text, a counter per line with its
+     * rate per second since reset, and a histogram per line.
+     */
+    public static String snapshot() {
+        double elapsed = getElapsedSeconds();
+        StringBuilder snapshot = new StringBuilder();
+        snapshot.append(String.format("# Metrics: enabled = %s, elapsed = %.3f s%n", ENABLED, elapsed));
+        for (Counter counter : getCounters().values()) {
+            snapshot.append(String.format("%s = %d (%.1f/s)%n",
+                    counter.getName(), counter.sum(), counter.sum() / elapsed));
+        }
+        for (Histogram histogram : getHistograms().values()) {
+            snapshot.append(histogram).append(System.lineSeparator());
+        }
+        return snapshot.toString();
+    }
+
+    /**
+     * @param path the file to which the snapshot is written, it is replaced if exists.
+     */
+    public static void writeSnapshot(Path path) {
+        try {
+            Files.write(path, snapshot().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Register the metrics to the platform MBean server as {@value #OBJECT_NAME},
+     * it does nothing if they were registered.
+     */
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(), name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register the metrics MBean.", e);
+        }
+    }
+}
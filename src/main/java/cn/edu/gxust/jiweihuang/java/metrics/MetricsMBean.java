@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018-2019, Jiwei Huang. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.edu.gxust.jiweihuang.java.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>The class {@code MetricsMBean} exposes the metrics by JMX.
+ * Every counter is an attribute of its name, and every histogram gives the
+ * attributes of its name followed by {@code .count}, {@code .mean},
+ * {@code .p50}, {@code .p90}, {@code .p99} and {@code .max}. The attributes
+ * are listed when {@code MBeanInfo} is requested, so that the metrics
+ * created after registration are exposed too.</p>
+ */
+final class MetricsMBean implements DynamicMBean {
+
+    private static final String[] HISTOGRAM_ATTRIBUTES = {"count", "mean", "p50", "p90", "p99", "max"};
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Counter counter = Metrics.getCounters().get(attribute);
+        if (counter != null) {
+            return counter.sum();
+        }
+        int dot = attribute.lastIndexOf('.');
+        Histogram histogram = dot < 0 ? null : Metrics.getHistograms().get(attribute.substring(0, dot));
+        if (histogram != null) {
+            switch (attribute.substring(dot + 1)) {
+                case "count":
+                    return histogram.getCount();
+                case "mean":
+                    return histogram.getMean();
+                case "p50":
+                    return histogram.getValueAtPercentile(50);
+                case "p90":
+                    return histogram.getValueAtPercentile(90);
+                case "p99":
+                    return histogram.getValueAtPercentile(99);
+                case "max":
+                    return histogram.getMax();
+                default:
+                    break;
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("The metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                //Skip the unknown attribute as required by DynamicMBean.
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        switch (actionName) {
+            case "reset":
+                Metrics.reset();
+                return null;
+            case "snapshot":
+                return Metrics.snapshot();
+            default:
+                throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String name : Metrics.getCounters().keySet()) {
+            attributes.add(new MBeanAttributeInfo(name, "long", "The counter " + name + ".",
+                    true, false, false));
+        }
+        for (String name : Metrics.getHistograms().keySet()) {
+            for (String suffix : HISTOGRAM_ATTRIBUTES) {
+                attributes.add(new MBeanAttributeInfo(name + "." + suffix,
+                        "mean".equals(suffix) ? "double" : "long",
+                        "The " + suffix + " of histogram " + name + ".", true, false, false));
+            }
+        }
+        MBeanOperationInfo[] operations = {
+                new MBeanOperationInfo("reset", "Reset all metrics.",
+                        new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION),
+                new MBeanOperationInfo("snapshot", "The snapshot of metrics as text.",
+                        new MBeanParameterInfo[0], "java.lang.String", MBeanOperationInfo.INFO)
+        };
+        return new MBeanInfo(MetricsMBean.class.getName(), "The metrics of JFilatureEngineering.",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, operations, null);
+    }
+}